@@ -0,0 +1,72 @@
+package com.kkreal.benchmark;
+
+import com.kkreal.auth.interceptor.AuthInterceptor;
+import com.kkreal.auth.util.JwtUtil;
+import com.kkreal.auth.util.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthInterceptor.preHandle 完整路径：公共接口放行、缓存命中、缓存未命中（完整签名校验）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthInterceptorBenchmark {
+
+    private AuthInterceptor interceptor;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private String token;
+
+    private MockHttpServletRequest authenticatedRequest;
+
+    private MockHttpServletRequest publicRequest;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        verifiedTokenCache = BenchmarkFixtures.verifiedTokenCache();
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        interceptor = BenchmarkFixtures.authInterceptor(jwtUtil, verifiedTokenCache);
+        token = jwtUtil.generateToken("zhangsan");
+
+        authenticatedRequest = new MockHttpServletRequest("GET", "/api/users/1");
+        authenticatedRequest.addHeader("Authorization", "Bearer " + token);
+        publicRequest = new MockHttpServletRequest("POST", "/auth/login");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public boolean publicEndpoint() throws Exception {
+        return interceptor.preHandle(publicRequest, response, null);
+    }
+
+    @Benchmark
+    public boolean authenticatedCached() throws Exception {
+        return interceptor.preHandle(authenticatedRequest, response, null);
+    }
+
+    @Benchmark
+    public boolean authenticatedUncached() throws Exception {
+        verifiedTokenCache.invalidate(token);
+        return interceptor.preHandle(authenticatedRequest, response, null);
+    }
+}
@@ -0,0 +1,54 @@
+package com.kkreal.benchmark;
+
+import com.kkreal.auth.interceptor.AuthInterceptor;
+import com.kkreal.auth.util.JwtUtil;
+import com.kkreal.auth.util.TokenRevocationStore;
+import com.kkreal.auth.util.VerifiedTokenCache;
+import com.kkreal.config.JwtKeyProperties;
+import com.kkreal.entity.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+/**
+ * 基准测试公共夹具：在Spring容器之外按生产配置组装被测对象
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "kkreal-secret-key-change-in-production";
+
+    private BenchmarkFixtures() {
+    }
+
+    static VerifiedTokenCache verifiedTokenCache() {
+        return new VerifiedTokenCache(10000);
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtUtil, "keyProperties", new JwtKeyProperties());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    static AuthInterceptor authInterceptor(JwtUtil jwtUtil, VerifiedTokenCache verifiedTokenCache) {
+        AuthInterceptor interceptor = new AuthInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(interceptor, "verifiedTokenCache", verifiedTokenCache);
+        // 不启动清理和快照线程
+        ReflectionTestUtils.setField(interceptor, "tokenRevocationStore", new TokenRevocationStore("", 60, 5));
+        return interceptor;
+    }
+
+    static User user(long id) {
+        User user = new User("user" + id, "user" + id + "@example.com");
+        user.setId(id);
+        user.setPhone("13800138000");
+        user.setAge(25);
+        user.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        user.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 12, 0));
+        return user;
+    }
+}
@@ -0,0 +1,84 @@
+package com.kkreal.benchmark;
+
+import com.kkreal.auth.util.JwtUtil;
+import com.kkreal.auth.util.VerifiedToken;
+import com.kkreal.auth.util.VerifiedTokenCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil 签发与校验吞吐量
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        verifiedTokenCache = BenchmarkFixtures.verifiedTokenCache();
+        jwtUtil = BenchmarkFixtures.jwtUtil();
+        token = jwtUtil.generateToken("zhangsan");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("zhangsan");
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtUtil.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, "zhangsan");
+    }
+
+    /**
+     * 单次解析同时得到用户名和过期时间
+     */
+    @Benchmark
+    public VerifiedToken parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+
+    /**
+     * 旧拦截器的调用方式：getUsernameFromToken + validateToken（内部再 isTokenExpired），共3次解析
+     */
+    @Benchmark
+    public void parseThreeTimes(Blackhole blackhole) {
+        blackhole.consume(jwtUtil.getUsernameFromToken(token));
+        blackhole.consume(jwtUtil.getUsernameFromToken(token));
+        blackhole.consume(jwtUtil.isTokenExpired(token));
+    }
+
+    /**
+     * 已校验Token缓存命中
+     */
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return verifiedTokenCache.verify(token, jwtUtil::parseToken);
+    }
+}
@@ -0,0 +1,83 @@
+package com.kkreal.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import com.kkreal.util.LogUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogUtil 追踪ID生成与性能日志
+ * <p>
+ * 日志使用独立的LoggerContext且不挂Appender，只衡量调用方线程上的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogUtilBenchmark {
+
+    private Logger infoLogger;
+
+    private Logger warnLogger;
+
+    @Setup
+    public void setup() {
+        LoggerContext context = new LoggerContext();
+        infoLogger = context.getLogger("benchmark.info");
+        infoLogger.setLevel(Level.INFO);
+        warnLogger = context.getLogger("benchmark.warn");
+        warnLogger.setLevel(Level.WARN);
+    }
+
+    @Benchmark
+    public String generateTraceId() {
+        return LogUtil.generateTraceId();
+    }
+
+    /**
+     * 旧实现：Math.random + 线程ID + 字符串拼接
+     */
+    @Benchmark
+    public String generateTraceIdLegacy() {
+        return String.valueOf(System.currentTimeMillis()) + "-" +
+               Thread.currentThread().getId() + "-" +
+               Math.abs((int) (Math.random() * 100000));
+    }
+
+    @Benchmark
+    public void logPerformanceEnabled() {
+        LogUtil.logPerformance(infoLogger, "getUserById", 12L, 1L);
+    }
+
+    @Benchmark
+    public void logPerformanceDisabled() {
+        LogUtil.logPerformance(warnLogger, "getUserById", 12L, 1L);
+    }
+
+    /**
+     * 旧实现：每次调用都执行 String.format，与日志级别无关
+     */
+    @Benchmark
+    public void logPerformanceLegacyDisabled() {
+        Object[] params = {1L};
+        String message = String.format("PERFORMANCE - Operation: %s, Duration: %d ms", "getUserById", 12L);
+        if (params.length > 0) {
+            message += ", Params: " + java.util.Arrays.toString(params);
+        }
+        warnLogger.info("[PERFORMANCE] " + message);
+    }
+}
@@ -0,0 +1,72 @@
+package com.kkreal.benchmark;
+
+import com.kkreal.auth.util.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录密码校验吞吐量
+ * <p>
+ * verifyOnCallerThread 为单线程直接校验，即每核每秒可处理的登录数；
+ * verifyOnExecutor 以CPU核数个请求线程经专用线程池校验，总吞吐量除以核数应接近前者，
+ * 差值即线程池交接的开销。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "password";
+
+    @Param({"8", "10", "12"})
+    private int cost;
+
+    private BCryptPasswordEncoder encoder;
+
+    private PasswordHasher passwordHasher;
+
+    private String storedPassword;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        encoder = new BCryptPasswordEncoder(cost);
+        // 队列足够长，只测吞吐量不测拒绝
+        passwordHasher = new PasswordHasher(cost, 0, 1024, 60000);
+        storedPassword = encoder.encode(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean verifyOnCallerThread() {
+        return encoder.matches(PASSWORD, storedPassword);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean verifyOnExecutor() {
+        return passwordHasher.matches(PASSWORD, storedPassword);
+    }
+}
@@ -0,0 +1,105 @@
+package com.kkreal.benchmark;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.kkreal.common.Result;
+import com.kkreal.config.BinaryContentConfig;
+import com.kkreal.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result 响应体的Jackson序列化、反序列化（ObjectMapper配置与应用中的消息转换器一致）
+ * <p>
+ * format 对比JSON与CBOR、Smile二进制格式；各格式的响应体大小在每组参数开始时打印
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultSerializationBenchmark {
+
+    private static final TypeReference<Result<User>> USER_RESULT = new TypeReference<>() {
+    };
+
+    private static final TypeReference<Result<Page<User>>> PAGE_RESULT = new TypeReference<>() {
+    };
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+
+    private Result<User> userResult;
+
+    private Result<Page<User>> pageResult;
+
+    private byte[] userBytes;
+
+    private byte[] pageBytes;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = switch (format) {
+            case "cbor" -> BinaryContentConfig.binaryObjectMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory());
+            case "smile" -> BinaryContentConfig.binaryObjectMapper(Jackson2ObjectMapperBuilder.json(), new SmileFactory());
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        userResult = Result.success(BenchmarkFixtures.user(1));
+
+        List<User> users = new ArrayList<>(pageSize);
+        for (int i = 1; i <= pageSize; i++) {
+            users.add(BenchmarkFixtures.user(i));
+        }
+        Page<User> page = new Page<>(1, pageSize, 10000);
+        page.setRecords(users);
+        pageResult = Result.success(page);
+
+        userBytes = objectMapper.writeValueAsBytes(userResult);
+        pageBytes = objectMapper.writeValueAsBytes(pageResult);
+        System.out.printf("%n[payload] format=%s user=%d bytes page(%d)=%d bytes%n",
+                format, userBytes.length, pageSize, pageBytes.length);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return objectMapper.writeValueAsBytes(userResult);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(pageResult);
+    }
+
+    @Benchmark
+    public Result<User> deserializeUser() throws Exception {
+        return objectMapper.readValue(userBytes, USER_RESULT);
+    }
+
+    @Benchmark
+    public Result<Page<User>> deserializePage() throws Exception {
+        return objectMapper.readValue(pageBytes, PAGE_RESULT);
+    }
+}
@@ -0,0 +1,86 @@
+package com.kkreal.benchmark;
+
+import com.kkreal.entity.User;
+import com.kkreal.mapper.UserMapper;
+import com.kkreal.search.UserNgramIndex;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 子串搜索：trigram索引求候选 vs 逐行 contains（相当于数据库 LIKE '%x%' 全表扫描的CPU部分）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserNgramIndexBenchmark {
+
+    @Param({"10000", "100000"})
+    private int userCount;
+
+    private UserNgramIndex index;
+
+    private List<User> users;
+
+    private final String term = "er4242";
+
+    @Setup
+    public void setup() {
+        index = new UserNgramIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "maxCandidates", Integer.MAX_VALUE);
+        users = new ArrayList<>(userCount);
+        for (int i = 1; i <= userCount; i++) {
+            users.add(BenchmarkFixtures.user(i));
+        }
+        UserMapper userMapper = Mockito.mock(UserMapper.class);
+        Mockito.doAnswer(invocation -> {
+            ResultHandler<User> handler = invocation.getArgument(0);
+            DefaultResultContext<User> context = new DefaultResultContext<>();
+            for (User user : users) {
+                context.nextResultObject(user);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(userMapper).streamAll(Mockito.any());
+        ReflectionTestUtils.setField(index, "userMapper", userMapper);
+        index.rebuild();
+    }
+
+    @Benchmark
+    public Set<Long> ngramIndex() {
+        return index.candidates(term, null);
+    }
+
+    @Benchmark
+    public List<Long> linearScan() {
+        List<Long> ids = new ArrayList<>();
+        for (User user : users) {
+            if (user.getUsername().toLowerCase(Locale.ROOT).contains(term)) {
+                ids.add(user.getId());
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,40 @@
+package com.kkreal.loadtest;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+
+/**
+ * 模拟慢数据库：每条SQL执行前在持有连接的线程上等待 loadtest.db-latency-ms 毫秒
+ * <p>
+ * 用于对比平台线程与虚拟线程模式在数据库延迟升高时的吞吐量
+ */
+@Component
+@Profile("loadtest")
+@ConditionalOnProperty(name = "loadtest.db-latency-ms")
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, org.apache.ibatis.session.ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+        @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class DatabaseLatencyInterceptor implements Interceptor {
+
+    @Value("${loadtest.db-latency-ms}")
+    private long latencyMillis;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+        return invocation.proceed();
+    }
+}
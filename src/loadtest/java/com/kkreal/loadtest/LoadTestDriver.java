@@ -0,0 +1,244 @@
+package com.kkreal.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 压测驱动：固定并发的闭环压测，每个线程持有自己的Token，按权重随机选择接口
+ */
+public class LoadTestDriver {
+
+    private static final String JSON = "application/json";
+
+    private final String baseUrl;
+
+    private final int users;
+
+    private final int concurrency;
+
+    private final HttpClient client;
+
+    private final Map<String, Scenario> scenarios = new LinkedHashMap<>();
+
+    private final AtomicLong createdUsers = new AtomicLong();
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private volatile long measuredNanos;
+
+    public LoadTestDriver(String baseUrl, int users, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.users = users;
+        this.concurrency = concurrency;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        scenario("GET /api/users/{id}", 30, token -> get("/api/users/" + randomUserId(), token));
+        scenario("GET /api/users/username/{username}", 20, token -> get("/api/users/username/user" + randomUserId(), token));
+        scenario("GET /api/users/page", 10, token -> get("/api/users/page?pageNum="
+                + ThreadLocalRandom.current().nextInt(1, 100) + "&pageSize=10", token));
+        scenario("GET /api/users/cursor", 10, token -> get("/api/users/cursor?pageSize=10", token));
+        scenario("GET /api/users/search", 10, token -> get("/api/users/search?username=user"
+                + ThreadLocalRandom.current().nextInt(100, 1000), token));
+        scenario("POST /api/users", 5, token -> {
+            String name = "lt" + runId + "_" + createdUsers.incrementAndGet();
+            return post("/api/users", token, "{\"username\":\"" + name + "\",\"email\":\"" + name + "@example.com\"}");
+        });
+        scenario("PUT /api/users/{id}", 5, token -> put("/api/users/" + randomUserId(), token,
+                "{\"age\":" + ThreadLocalRandom.current().nextInt(18, 80) + "}"));
+        // 响应式接口，与上面的阻塞接口对照
+        scenario("GET /api/reactive/users/{id}", 15, token -> get("/api/reactive/users/" + randomUserId(), token));
+        scenario("GET /api/reactive/users/cursor", 5, token -> get("/api/reactive/users/cursor?pageSize=10", token));
+        scenario("GET /api/reactive/users/search", 5, token -> get("/api/reactive/users/search?username=user"
+                + ThreadLocalRandom.current().nextInt(100, 1000), token));
+        scenario("POST /auth/login", 10, token -> post("/auth/login", null,
+                "{\"username\":\"user" + randomUserId() + "\",\"password\":\"password\"}"));
+    }
+
+    /**
+     * 预热后清空统计，再正式压测
+     */
+    public void run(int warmupSeconds, int durationSeconds) throws Exception {
+        List<String> tokens = login(concurrency);
+        if (warmupSeconds > 0) {
+            drive(tokens, warmupSeconds);
+            scenarios.values().forEach(Scenario::reset);
+        }
+        long start = System.nanoTime();
+        drive(tokens, durationSeconds);
+        measuredNanos = System.nanoTime() - start;
+    }
+
+    public void printReport(PrintStream out) {
+        double seconds = measuredNanos / 1e9;
+        out.printf("%n压测结果（并发 %d，时长 %.1f s，预置用户 %d）%n", concurrency, seconds, users);
+        out.printf("%-36s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (Scenario scenario : scenarios.values()) {
+            Histogram histogram = scenario.latencies;
+            long count = histogram.getTotalCount();
+            long errors = scenario.errors.sum();
+            totalRequests += count;
+            totalErrors += errors;
+            out.printf("%-36s %9d %9.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    scenario.name, count, count / seconds,
+                    count == 0 ? 0.0 : errors * 100.0 / count,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+        out.printf("%-36s %9d %9.1f %7.2f%%%n", "TOTAL", totalRequests, totalRequests / seconds,
+                totalRequests == 0 ? 0.0 : totalErrors * 100.0 / totalRequests);
+    }
+
+    private void drive(List<String> tokens, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Scenario> weighted = new ArrayList<>();
+        scenarios.values().forEach(scenario -> {
+            for (int i = 0; i < scenario.weight; i++) {
+                weighted.add(scenario);
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            String token = tokens.get(i);
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        Scenario scenario = weighted.get(ThreadLocalRandom.current().nextInt(weighted.size()));
+                        execute(scenario, scenario.request.apply(token));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdown();
+    }
+
+    private void execute(Scenario scenario, HttpRequest request) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            // 业务错误同样以HTTP 200返回，需要检查Result.code；异步写入时创建请求返回202
+            success = (response.statusCode() == 200 || response.statusCode() == 202)
+                    && response.body().contains("\"code\":200");
+        } catch (Exception e) {
+            success = false;
+        }
+        scenario.latencies.recordValue(Math.max(1, (System.nanoTime() - start) / 1000));
+        if (!success) {
+            scenario.errors.increment();
+        }
+    }
+
+    private List<String> login(int count) throws Exception {
+        List<String> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = "user" + (i % users + 1);
+            HttpResponse<String> response = client.send(
+                    post("/auth/login", null, "{\"username\":\"" + username + "\",\"password\":\"password\"}"),
+                    HttpResponse.BodyHandlers.ofString());
+            tokens.add(extract(response.body(), "token"));
+        }
+        return tokens;
+    }
+
+    private static String extract(String json, String field) {
+        String marker = "\"" + field + "\":\"";
+        int start = json.indexOf(marker);
+        if (start < 0) {
+            throw new IllegalStateException("登录失败: " + json);
+        }
+        start += marker.length();
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    private void scenario(String name, int weight, Function<String, HttpRequest> request) {
+        scenarios.put(name, new Scenario(name, weight, request));
+    }
+
+    private int randomUserId() {
+        return ThreadLocalRandom.current().nextInt(1, users + 1);
+    }
+
+    private HttpRequest get(String path, String token) {
+        return builder(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, String token, String body) {
+        return builder(path, token).header("Content-Type", JSON).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest put(String path, String token, String body) {
+        return builder(path, token).header("Content-Type", JSON).PUT(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest.Builder builder(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", JSON);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Scenario {
+
+        private final String name;
+
+        private final int weight;
+
+        private final Function<String, HttpRequest> request;
+
+        // 微秒
+        private final Histogram latencies = new ConcurrentHistogram(3);
+
+        private final LongAdder errors = new LongAdder();
+
+        private Scenario(String name, int weight, Function<String, HttpRequest> request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+
+        private void reset() {
+            latencies.reset();
+            errors.reset();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.kkreal.loadtest;
+
+import com.kkreal.KkrealCodeApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+/**
+ * 端到端压测入口
+ * <p>
+ * 以 loadtest 环境启动应用（内存H2 + 预置用户），随后按配置的并发驱动 UserController / AuthController 接口，
+ * 输出各接口的延迟分位数、吞吐量和错误率。参数可通过命令行覆盖，例如 --loadtest.concurrency=64
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        // DevTools 重启会在另一个线程重新启动应用，压测时关闭
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(KkrealCodeApplication.class)
+                .profiles("loadtest")
+                .run(args);
+        try {
+            Environment env = context.getEnvironment();
+            LoadTestDriver driver = new LoadTestDriver(
+                    "http://localhost:" + env.getRequiredProperty("local.server.port"),
+                    env.getProperty("loadtest.users", Integer.class, 10000),
+                    env.getProperty("loadtest.concurrency", Integer.class, 32));
+            driver.run(env.getProperty("loadtest.warmup-seconds", Integer.class, 5),
+                    env.getProperty("loadtest.duration-seconds", Integer.class, 30));
+            driver.printReport(System.out);
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.kkreal.loadtest;
+
+import com.kkreal.auth.util.PasswordHasher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 压测数据预置：启动时向内存库插入 loadtest.users 个用户（user1 ~ userN，密码均为 password）
+ */
+@Component
+@Profile("loadtest")
+@Slf4j
+public class LoadTestSeeder implements InitializingBean {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Value("${loadtest.users:10000}")
+    private int users;
+
+    @Override
+    public void afterPropertiesSet() {
+        long startTime = System.currentTimeMillis();
+        // 所有用户的密码都是 password，哈希只计算一次
+        jdbcTemplate.update("INSERT INTO user (username, email, phone, age, status, password) "
+                + "SELECT CONCAT('user', X), CONCAT('user', X, '@example.com'), '13800138000', MOD(X, 60) + 18, 1, ? "
+                + "FROM SYSTEM_RANGE(1, " + users + ")", passwordHasher.hash("password"));
+        log.info("压测数据预置完成，用户数: {}，耗时 {} ms", users, System.currentTimeMillis() - startTime);
+    }
+}
@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS user (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    username   VARCHAR(64)  NOT NULL,
+    email      VARCHAR(128) NOT NULL,
+    phone      VARCHAR(32),
+    age        INT,
+    status     INT       DEFAULT 1,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version    INT       NOT NULL DEFAULT 0,
+    password   VARCHAR(100),
+    CONSTRAINT uk_user_username UNIQUE (username),
+    CONSTRAINT uk_user_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS user_id_segment (
+    name    VARCHAR(64) PRIMARY KEY,
+    next_id BIGINT      NOT NULL
+);
@@ -3,8 +3,16 @@ package com.kkreal;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
-@SpringBootApplication
+/**
+ * R2DBC连接池由 ReactiveUserService 自行创建：容器中存在ConnectionFactory bean时，
+ * Spring Boot不再自动配置JDBC数据源，MyBatis将无法启动
+ */
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@EnableConfigurationProperties(R2dbcProperties.class)
 @MapperScan("com.kkreal.mapper")
 public class KkrealCodeApplication {
 
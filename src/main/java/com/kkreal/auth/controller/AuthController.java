@@ -1,11 +1,18 @@
 package com.kkreal.auth.controller;
 
+import com.kkreal.auth.dto.ChangePasswordRequest;
 import com.kkreal.auth.dto.LoginRequest;
 import com.kkreal.auth.dto.LoginResponse;
+import com.kkreal.auth.dto.RegisterRequest;
 import com.kkreal.auth.util.JwtUtil;
+import com.kkreal.auth.util.PasswordHasher;
+import com.kkreal.auth.util.TokenRevocationStore;
+import com.kkreal.auth.util.VerifiedToken;
+import com.kkreal.auth.util.VerifiedTokenCache;
 import com.kkreal.common.Result;
 import com.kkreal.entity.User;
 import com.kkreal.service.UserService;
+import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,20 +22,37 @@ import org.springframework.web.bind.annotation.*;
 /**
  * 认证控制器
  */
-@Tag(name = "认证管理", description = "用户登录、注册、token刷新等接口")
+@Tag(name = "认证管理", description = "用户登录、注册、token刷新、退出登录等接口")
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
 
+    // 旧版本的刷新Token以"用户名+该后缀"为subject，保留该后缀，不允许注册以其结尾的用户名
+    private static final String RESERVED_SUFFIX = "_refresh";
+
     @Autowired
     private UserService userService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
     @Value("${jwt.expiration:3600}")
     private Long expiration;
 
+    // 允许没有密码的用户（密码列上线前创建）在首次登录时以提交的密码设置。
+    // 开启期间任何人都能替这类用户设置密码，只应在迁移窗口内临时开启
+    @Value("${auth.password.allow-missing:false}")
+    private boolean allowMissingPassword;
+
     /**
      * 用户登录
      */
@@ -41,25 +65,54 @@ public class AuthController {
             return Result.error("用户不存在");
         }
 
-        // 这里应该验证密码，为了演示先跳过密码验证
-        // 实际应用中需要比较加密后的密码
-        if (!isValidPassword(user, loginRequest.getPassword())) {
+        // 在密码哈希线程池上校验，cost变化或仍为明文时后台重新哈希
+        String storedPassword = userService.getPasswordHash(user.getId());
+        if (storedPassword == null && allowMissingPassword) {
+            if (loginRequest.getPassword() == null || loginRequest.getPassword().isEmpty()) {
+                return Result.error("密码不能为空");
+            }
+            // 只在密码仍为空时设置，并发的首次登录只有一个生效，其余按已设置的密码校验
+            if (userService.replacePasswordHash(user.getId(), null, passwordHasher.hash(loginRequest.getPassword()))) {
+                return Result.success("登录成功", issueTokens(user));
+            }
+            storedPassword = userService.getPasswordHash(user.getId());
+        }
+        if (!passwordHasher.matches(loginRequest.getPassword(), storedPassword)) {
             return Result.error("密码错误");
         }
+        if (passwordHasher.needsRehash(storedPassword)) {
+            passwordHasher.rehashAsync(loginRequest.getPassword(),
+                    hash -> userService.replacePasswordHash(user.getId(), storedPassword, hash));
+        }
 
-        // 生成JWT token
-        String token = jwtUtil.generateToken(user.getUsername());
-        String refreshToken = jwtUtil.generateToken(user.getUsername() + "_refresh");
+        return Result.success("登录成功", issueTokens(user));
+    }
 
-        LoginResponse response = new LoginResponse(
-                token,
-                refreshToken,
-                user.getId(),
-                user.getUsername(),
-                System.currentTimeMillis() + expiration * 1000
-        );
+    /**
+     * 修改密码
+     */
+    @Operation(summary = "修改密码", description = "已登录用户校验原密码后设置新密码；还没有密码的用户凭访问Token直接设置")
+    @PutMapping("/password")
+    public Result<Void> changePassword(@RequestAttribute("username") String username,
+                                       @RequestBody ChangePasswordRequest request) {
+        if (request.getNewPassword() == null || request.getNewPassword().isEmpty()) {
+            return Result.error("新密码不能为空");
+        }
+        User user = userService.getUserByUsername(username);
+        if (user == null) {
+            return Result.error("用户不存在");
+        }
 
-        return Result.success("登录成功", response);
+        String storedPassword = userService.getPasswordHash(user.getId());
+        // 还没有密码的用户已通过访问Token认证，不再校验原密码
+        if (storedPassword != null && !passwordHasher.matches(request.getOldPassword(), storedPassword)) {
+            return Result.error("原密码错误");
+        }
+        // 以校验时的哈希为条件替换，期间密码被并发修改时不覆盖
+        if (!userService.replacePasswordHash(user.getId(), storedPassword, passwordHasher.hash(request.getNewPassword()))) {
+            return Result.error("密码已被修改，请重试");
+        }
+        return Result.success("密码修改成功", null);
     }
 
     /**
@@ -67,14 +120,29 @@ public class AuthController {
      */
     @Operation(summary = "用户注册", description = "新用户注册")
     @PostMapping("/register")
-    public Result<User> register(@RequestBody User user) {
+    public Result<User> register(@RequestBody RegisterRequest request) {
+        if (request.getPassword() == null || request.getPassword().isEmpty()) {
+            return Result.error("密码不能为空");
+        }
+
+        if (request.getUsername() == null || request.getUsername().isBlank()) {
+            return Result.error("用户名不能为空");
+        }
+        if (request.getUsername().endsWith(RESERVED_SUFFIX)) {
+            return Result.error("用户名不能以" + RESERVED_SUFFIX + "结尾");
+        }
+
         // 检查用户是否已存在
-        User existingUser = userService.getUserByUsername(user.getUsername());
+        User existingUser = userService.getUserByUsername(request.getUsername());
         if (existingUser != null) {
             return Result.error("用户名已存在");
         }
 
-        // 保存用户（实际应用中需要加密密码）
+        // 保存用户，只存储密码哈希
+        User user = new User(request.getUsername(), request.getEmail());
+        user.setPhone(request.getPhone());
+        user.setAge(request.getAge());
+        user.setPassword(passwordHasher.hash(request.getPassword()));
         User savedUser = userService.createUser(user);
         return Result.success("注册成功", savedUser);
     }
@@ -85,22 +153,56 @@ public class AuthController {
     @Operation(summary = "刷新Token", description = "使用刷新Token获取新的访问Token")
     @PostMapping("/refresh")
     public Result<String> refresh(@RequestHeader("Refresh-Token") String refreshToken) {
-        if (jwtUtil.validateToken(refreshToken, refreshToken)) {
-            // 从刷新Token中提取用户名（实际应用中可能需要不同的逻辑）
-            String username = jwtUtil.getUsernameFromToken(refreshToken);
-            String newToken = jwtUtil.generateToken(username);
+        try {
+            // 只解析一次，与拦截器共用已校验Token缓存
+            VerifiedToken verified = verifiedTokenCache.verify(refreshToken, jwtUtil::parseToken);
+            // 以签名内的 typ claim 识别刷新Token，不依赖subject的格式
+            if (!verified.isRefreshToken() || verified.getUsername() == null || verified.isExpired()
+                    || tokenRevocationStore.isRevoked(verified.getJti())) {
+                return Result.error("无效的刷新Token");
+            }
+            String newToken = jwtUtil.generateToken(verified.getUsername());
             return Result.success("Token刷新成功", newToken);
-        } else {
+        } catch (JwtException e) {
             return Result.error("无效的刷新Token");
         }
     }
 
     /**
-     * 模拟密码验证
+     * 退出登录
      */
-    private boolean isValidPassword(User user, String inputPassword) {
-        // 实际应用中应该比较加密后的密码
-        // 这里为了演示返回true，实际应该使用BCrypt等进行密码比较
-        return true;
+    @Operation(summary = "退出登录", description = "吊销当前访问Token，请求头带有刷新Token时一并吊销")
+    @PostMapping("/logout")
+    public Result<Void> logout(@RequestHeader("Authorization") String authorization,
+                               @RequestHeader(value = "Refresh-Token", required = false) String refreshToken) {
+        // 访问Token已由拦截器校验
+        revoke(authorization.substring("Bearer ".length()));
+        if (refreshToken != null) {
+            try {
+                revoke(refreshToken);
+            } catch (JwtException e) {
+                // 无效或已过期的刷新Token本身已不可用，无需吊销
+            }
+        }
+        return Result.success("退出登录成功", null);
+    }
+
+    private LoginResponse issueTokens(User user) {
+        // 生成JWT token
+        String token = jwtUtil.generateToken(user.getUsername());
+        String refreshToken = jwtUtil.generateRefreshToken(user.getUsername());
+
+        return new LoginResponse(
+                token,
+                refreshToken,
+                user.getId(),
+                user.getUsername(),
+                System.currentTimeMillis() + expiration * 1000
+        );
+    }
+
+    private void revoke(String token) {
+        VerifiedToken verified = verifiedTokenCache.verify(token, jwtUtil::parseToken);
+        tokenRevocationStore.revoke(verified.getJti(), verified.getExpiration());
     }
 }
@@ -0,0 +1,15 @@
+package com.kkreal.auth.dto;
+
+import lombok.Data;
+
+/**
+ * 注册请求DTO
+ */
+@Data
+public class RegisterRequest {
+    private String username;
+    private String password;
+    private String email;
+    private String phone;
+    private Integer age;
+}
@@ -1,6 +1,9 @@
 package com.kkreal.auth.interceptor;
 
 import com.kkreal.auth.util.JwtUtil;
+import com.kkreal.auth.util.TokenRevocationStore;
+import com.kkreal.auth.util.VerifiedToken;
+import com.kkreal.auth.util.VerifiedTokenCache;
 import io.jsonwebtoken.ExpiredJwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -18,6 +21,12 @@ public class AuthInterceptor implements HandlerInterceptor {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private TokenRevocationStore tokenRevocationStore;
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         // 不拦截登录和注册接口
@@ -35,9 +44,17 @@ public class AuthInterceptor implements HandlerInterceptor {
         }
 
         try {
-            // 验证token
-            String username = jwtUtil.getUsernameFromToken(token);
-            if (username != null && jwtUtil.validateToken(token, username)) {
+            // 验证token，同一token只做一次签名校验，之后命中缓存
+            VerifiedToken verified = verifiedTokenCache.verify(token, jwtUtil::parseToken);
+            // 缓存命中的Token同样要检查是否已吊销
+            if (tokenRevocationStore.isRevoked(verified.getJti())) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Revoked token");
+                return false;
+            }
+            String username = verified.getUsername();
+            // 刷新Token只能用于 /auth/refresh，不能作为访问Token
+            if (username != null && !verified.isExpired() && !verified.isRefreshToken()) {
                 // 将用户信息存储到request中，便于后续使用
                 request.setAttribute("username", username);
                 return true;
@@ -1,77 +1,315 @@
 package com.kkreal.auth.util;
 
+import com.kkreal.config.JwtKeyProperties;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.DecodingException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT工具类
+ * <p>
+ * 支持多把密钥同时生效，签发时在header中写入kid，校验时按kid选择密钥。
+ * 轮换时先加入新密钥并切换 active-kid，旧密钥保留到其签发的Token全部过期后再删除。
+ * 密钥写在 jwt.keys-file 中时，后台线程按文件修改时间重新加载密钥环，轮换无需重启；
+ * 加载失败时保留当前密钥环。
+ * <p>
+ * 不带kid的Token是升级前签发的，按旧版本的方式（jwt.secret 按Base64解码）校验，
+ * 直到 jwt.legacy-verifier 关闭。每个Token带有随机的jti，用于在过期前吊销。
  */
 @Component
+@Slf4j
 public class JwtUtil {
 
+    private static final String DEFAULT_KID = "default";
+
+    private static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.HS512;
+
+    // 密钥文件中指定签发密钥的条目名
+    private static final String ACTIVE_KID_ENTRY = "active-kid";
+
+    // Token类型claim，刷新Token为 refresh，访问Token不带该claim
+    private static final String TOKEN_TYPE_CLAIM = "typ";
+
     @Value("${jwt.secret:kkreal-secret-key}")
     private String secret;
 
     @Value("${jwt.expiration:3600}") // 默认1小时
     private Long expiration;
 
+    @Autowired
+    private JwtKeyProperties keyProperties;
+
+    // 密钥环（不可变），重新加载时整体替换
+    private volatile KeyRing keyRing;
+
+    // 上次加载的密钥文件修改时间
+    private volatile long keysFileModified;
+
+    // 线程安全，可复用
+    private JwtParser parser;
+
+    private ScheduledExecutorService reloader;
+
+    @PostConstruct
+    public void init() {
+        this.keysFileModified = keysFileModified();
+        this.keyRing = loadKeyRing();
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveKey(header.getKeyId());
+                    }
+                })
+                .build();
+        if (hasKeysFile() && keyProperties.getReloadIntervalSeconds() > 0) {
+            long interval = keyProperties.getReloadIntervalSeconds();
+            reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "jwt-key-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloader.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    /**
+     * 密钥文件修改时间变化时重新加载密钥环
+     *
+     * @return 是否替换了密钥环
+     */
+    public boolean reloadIfChanged() {
+        long modified = keysFileModified();
+        if (modified == keysFileModified) {
+            return false;
+        }
+        try {
+            KeyRing ring = loadKeyRing();
+            keyRing = ring;
+            keysFileModified = modified;
+            log.info("JWT密钥已重新加载，active-kid: {}，密钥数: {}", ring.activeKid, ring.keys.size());
+            return true;
+        } catch (Exception e) {
+            log.error("JWT密钥重新加载失败，继续使用当前密钥，错误: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
     /**
-     * 生成JWT Token
+     * 生成JWT访问Token
      */
     public String generateToken(String username) {
+        return generate(username, null);
+    }
+
+    /**
+     * 生成刷新Token，带 typ=refresh claim，只能用于 /auth/refresh，不能作为访问Token
+     */
+    public String generateRefreshToken(String username) {
+        return generate(username, VerifiedToken.REFRESH_TYPE);
+    }
+
+    private String generate(String username, String type) {
+        KeyRing ring = keyRing;
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration * 1000);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, ring.activeKid)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(expiryDate)
-                .signWith(SignatureAlgorithm.HS512, secret)
-                .compact();
+                .setIssuedAt(now)
+                .setExpiration(expiryDate);
+        if (type != null) {
+            builder.claim(TOKEN_TYPE_CLAIM, type);
+        }
+        return builder.signWith(ring.activeKey, ALGORITHM).compact();
+    }
+
+    /**
+     * 解析并校验Token，一次解析同时返回用户名、过期时间、jti和Token类型
+     * <p>
+     * 签名错误、格式错误或已过期时抛出对应的JwtException
+     */
+    public VerifiedToken parseToken(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+
+        return new VerifiedToken(claims.getSubject(), claims.getExpiration(), claims.getId(),
+                claims.get(TOKEN_TYPE_CLAIM, String.class));
     }
 
     /**
      * 从Token中解析用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+        return parseToken(token).getUsername();
     }
 
     /**
      * 验证Token是否过期
      */
     public boolean isTokenExpired(String token) {
-        Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return parseToken(token).isExpired();
     }
 
     /**
      * 从Token中获取过期时间
      */
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getExpiration();
+        return parseToken(token).getExpiration();
     }
 
     /**
      * 验证Token
      */
     public boolean validateToken(String token, String username) {
-        String tokenUsername = getUsernameFromToken(token);
-        return tokenUsername.equals(username) && !isTokenExpired(token);
+        VerifiedToken verified = parseToken(token);
+        return verified.getUsername().equals(username) && !verified.isExpired();
+    }
+
+    private Key resolveKey(String kid) {
+        KeyRing ring = keyRing;
+        // 未携带kid的是升级前签发的Token，按旧版本的密钥校验
+        SecretKey key = kid == null ? ring.legacyKey : ring.keys.get(kid);
+        if (key == null) {
+            throw new SignatureException("未知的签名密钥: " + kid);
+        }
+        return key;
+    }
+
+    private KeyRing loadKeyRing() {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        keys.put(DEFAULT_KID, toSigningKey(secret));
+        keyProperties.getKeys().forEach((kid, value) -> keys.put(kid, toSigningKey(value)));
+        String activeKid = keyProperties.getActiveKid();
+        if (hasKeysFile()) {
+            Properties file = new Properties();
+            try (Reader reader = Files.newBufferedReader(Paths.get(keyProperties.getKeysFile()), StandardCharsets.UTF_8)) {
+                file.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取密钥文件失败: " + keyProperties.getKeysFile(), e);
+            }
+            for (String name : file.stringPropertyNames()) {
+                if (ACTIVE_KID_ENTRY.equals(name)) {
+                    activeKid = file.getProperty(name).trim();
+                } else {
+                    keys.put(name, toSigningKey(file.getProperty(name).trim()));
+                }
+            }
+        }
+        SecretKey legacyKey = keyProperties.isLegacyVerifier() ? toLegacyKey(secret) : null;
+        return new KeyRing(activeKid, keys, legacyKey);
+    }
+
+    private boolean hasKeysFile() {
+        return keyProperties.getKeysFile() != null && !keyProperties.getKeysFile().isBlank();
+    }
+
+    private long keysFileModified() {
+        if (!hasKeysFile()) {
+            return 0;
+        }
+        try {
+            return Files.getLastModifiedTime(Paths.get(keyProperties.getKeysFile())).toMillis();
+        } catch (IOException e) {
+            // 文件暂时不可读（例如正在替换）时保持当前密钥，下次再检查
+            return keysFileModified;
+        }
+    }
+
+    /**
+     * 将配置的密钥转换为HS512签名密钥，不足512位时用SHA-512派生
+     */
+    private static SecretKey toSigningKey(String keySecret) {
+        byte[] bytes = keySecret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 64) {
+            try {
+                bytes = MessageDigest.getInstance("SHA-512").digest(bytes);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-512 not available", e);
+            }
+        }
+        return Keys.hmacShaKeyFor(bytes);
+    }
+
+    /**
+     * 升级前的签名密钥：旧版本以 signWith(HS512, secret) 签名，secret 按Base64解码后直接作为密钥。
+     * 解码失败或不足512位的secret在旧版本中无法签发Token，返回null
+     */
+    private static SecretKey toLegacyKey(String keySecret) {
+        try {
+            byte[] bytes = Decoders.BASE64.decode(keySecret);
+            return bytes.length >= 64 ? new SecretKeySpec(bytes, ALGORITHM.getJcaName()) : null;
+        } catch (DecodingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 密钥环（不可变）
+     */
+    private static final class KeyRing {
+
+        private final String activeKid;
+
+        private final SecretKey activeKey;
+
+        private final Map<String, SecretKey> keys;
+
+        // 校验不带kid的旧Token，未启用或不可用时为null
+        private final SecretKey legacyKey;
+
+        private KeyRing(String activeKid, Map<String, SecretKey> keys, SecretKey legacyKey) {
+            SecretKey activeKey = keys.get(activeKid);
+            if (activeKey == null) {
+                throw new IllegalArgumentException("签名密钥不存在: " + activeKid);
+            }
+            this.activeKid = activeKid;
+            this.activeKey = activeKey;
+            this.keys = Collections.unmodifiableMap(keys);
+            this.legacyKey = legacyKey;
+        }
     }
 }
@@ -0,0 +1,168 @@
+package com.kkreal.auth.util;
+
+import com.kkreal.common.ResultCode;
+import com.kkreal.exception.ServiceOverloadedException;
+import com.kkreal.logging.MdcTaskDecorator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 密码哈希（BCrypt）
+ * <p>
+ * 哈希和校验每次要消耗数十毫秒CPU，统一放到按CPU核数设置的专用线程池执行，不与普通请求争用Tomcat线程的CPU。
+ * 线程池队列有界，队列满时立即拒绝（返回429），等待超时返回503。任务在线程池上执行时保留提交线程的MDC（traceId）。
+ * 已存储哈希的cost与配置不一致、或仍是明文时，登录成功后在后台按当前cost重新哈希。
+ */
+@Component
+@Slf4j
+public class PasswordHasher implements MeterBinder {
+
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+
+    private final BCryptPasswordEncoder encoder;
+
+    private final int cost;
+
+    private final ThreadPoolExecutor executor;
+
+    private final TaskDecorator taskDecorator = new MdcTaskDecorator();
+
+    private final long timeoutMillis;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public PasswordHasher(@Value("${auth.password.bcrypt-cost:10}") int cost,
+                          @Value("${auth.password.threads:0}") int threads,
+                          @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                          @Value("${auth.password.timeout-ms:2000}") long timeoutMillis) {
+        this.cost = cost;
+        this.encoder = new BCryptPasswordEncoder(cost);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 按当前cost计算哈希
+     */
+    public String hash(String rawPassword) {
+        return execute(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * 校验密码；兼容迁移前以明文存储的密码
+     */
+    public boolean matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return false;
+        }
+        if (!isBcrypt(storedPassword)) {
+            return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+        return execute(() -> encoder.matches(rawPassword, storedPassword));
+    }
+
+    /**
+     * 已存储的密码是否需要按当前cost重新哈希
+     */
+    public boolean needsRehash(String storedPassword) {
+        return storedPassword != null
+                && (!isBcrypt(storedPassword) || Integer.parseInt(storedPassword.split("\\$")[2]) != cost);
+    }
+
+    /**
+     * 后台重新哈希，完成后交给 onHashed 保存；线程池繁忙时放弃，下次登录再试
+     */
+    public void rehashAsync(String rawPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(taskDecorator.decorate(() -> {
+                try {
+                    onHashed.accept(encoder.encode(rawPassword));
+                } catch (Exception e) {
+                    log.warn("密码重新哈希失败，错误: {}", e.getMessage());
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            log.debug("密码哈希线程池繁忙，跳过重新哈希");
+        }
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.password.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在计算密码哈希的线程数")
+                .register(registry);
+        Gauge.builder("auth.password.executor.queued", executor, e -> e.getQueue().size())
+                .description("等待计算密码哈希的任务数")
+                .register(registry);
+        FunctionCounter.builder("auth.password.executor.rejected", rejected, AtomicLong::get)
+                .description("线程池队列已满被拒绝的请求数")
+                .register(registry);
+    }
+
+    private <T> T execute(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        try {
+            executor.execute(taskDecorator.decorate(future));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new ServiceOverloadedException(ResultCode.TOO_MANY_REQUESTS);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("密码哈希等待超时（{} ms），当前排队: {}", timeoutMillis, executor.getQueue().size());
+            throw new ServiceOverloadedException(ResultCode.SERVICE_UNAVAILABLE);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException(ResultCode.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("密码哈希失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static boolean isBcrypt(String storedPassword) {
+        return BCRYPT_HASH.matcher(storedPassword).matches();
+    }
+}
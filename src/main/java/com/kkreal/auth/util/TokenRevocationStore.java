@@ -0,0 +1,196 @@
+package com.kkreal.auth.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已吊销Token列表
+ * <p>
+ * 以Token的jti为键、过期时间为值保存在内存中。请求路径上只做一次 containsKey，不分配对象；
+ * Token过期后自身已无法通过校验，对应条目由后台线程定期清理，内存占用以有效期内的吊销数为上限。
+ * 有变更时定期写入本地快照文件，启动时加载未过期的条目。每个实例各自维护，不在实例间共享。
+ */
+@Component
+@Slf4j
+public class TokenRevocationStore implements MeterBinder {
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final String snapshotFile;
+
+    private final long sweepIntervalSeconds;
+
+    private final long snapshotIntervalSeconds;
+
+    // 上次快照之后是否有新的吊销
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    public TokenRevocationStore(@Value("${jwt.revocation.snapshot-file:data/revoked-tokens.snapshot}") String snapshotFile,
+                                @Value("${jwt.revocation.sweep-interval-seconds:60}") long sweepIntervalSeconds,
+                                @Value("${jwt.revocation.snapshot-interval-seconds:5}") long snapshotIntervalSeconds) {
+        this.snapshotFile = snapshotFile;
+        this.sweepIntervalSeconds = sweepIntervalSeconds;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+
+    @PostConstruct
+    public void init() {
+        load();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+        if (hasSnapshotFile()) {
+            scheduler.scheduleWithFixedDelay(this::snapshotIfDirty,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        snapshotIfDirty();
+    }
+
+    /**
+     * 吊销Token，直到其过期时间为止
+     *
+     * @return 没有jti或已过期的Token无需吊销，返回false
+     */
+    public boolean revoke(String jti, Date expiration) {
+        if (jti == null || expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return false;
+        }
+        revoked.put(jti, expiration.getTime());
+        dirty.set(true);
+        log.info("Token已吊销，jti: {}，过期时间: {}", jti, expiration);
+        return true;
+    }
+
+    /**
+     * 是否已吊销（常数时间，不分配对象）
+     */
+    public boolean isRevoked(String jti) {
+        if (jti != null && revoked.containsKey(jti)) {
+            rejected.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 当前保存的吊销条目数
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("jwt.revocation.entries", revoked, Map::size)
+                .description("有效期内已吊销的Token数")
+                .register(registry);
+        FunctionCounter.builder("jwt.revocation.rejected", rejected, AtomicLong::get)
+                .description("使用已吊销Token被拒绝的请求数")
+                .register(registry);
+    }
+
+    /**
+     * 清理已过期的条目
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        int before = revoked.size();
+        if (revoked.values().removeIf(expiration -> expiration <= now)) {
+            dirty.set(true);
+            log.debug("已清理过期的吊销条目 {} 条", before - revoked.size());
+        }
+    }
+
+    private void snapshotIfDirty() {
+        if (!hasSnapshotFile() || !dirty.getAndSet(false)) {
+            return;
+        }
+        Path target = Paths.get(snapshotFile);
+        try {
+            Path parent = target.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            // 先写临时文件再原子替换，进程中途退出不会留下半个快照
+            Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+            long now = System.currentTimeMillis();
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+                    if (entry.getValue() > now) {
+                        writer.write(entry.getKey());
+                        writer.write(' ');
+                        writer.write(Long.toString(entry.getValue()));
+                        writer.newLine();
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("吊销列表快照写入失败，文件: {}，错误: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!hasSnapshotFile() || !Files.exists(Paths.get(snapshotFile))) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(snapshotFile), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.lastIndexOf(' ');
+                if (separator <= 0) {
+                    continue;
+                }
+                long expiration = Long.parseLong(line.substring(separator + 1));
+                if (expiration > now) {
+                    revoked.put(line.substring(0, separator), expiration);
+                }
+            }
+            log.info("已从快照加载吊销列表，条目数: {}，文件: {}", revoked.size(), snapshotFile);
+        } catch (IOException | NumberFormatException e) {
+            log.warn("吊销列表快照读取失败，从空列表开始，文件: {}，错误: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private boolean hasSnapshotFile() {
+        return snapshotFile != null && !snapshotFile.isBlank();
+    }
+}
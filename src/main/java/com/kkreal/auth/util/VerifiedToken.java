@@ -0,0 +1,69 @@
+package com.kkreal.auth.util;
+
+import java.util.Date;
+
+/**
+ * 已通过签名校验的Token信息
+ */
+public class VerifiedToken {
+
+    // 刷新Token的类型（typ claim）
+    public static final String REFRESH_TYPE = "refresh";
+
+    // 用户名（Token subject）
+    private final String username;
+
+    // 过期时间
+    private final Date expiration;
+
+    // Token唯一标识（jti），用于吊销；旧版本签发的Token没有
+    private final String jti;
+
+    // Token类型（typ claim），访问Token为null
+    private final String type;
+
+    public VerifiedToken(String username, Date expiration) {
+        this(username, expiration, null, null);
+    }
+
+    public VerifiedToken(String username, Date expiration, String jti) {
+        this(username, expiration, jti, null);
+    }
+
+    public VerifiedToken(String username, Date expiration, String jti, String type) {
+        this.username = username;
+        this.expiration = expiration;
+        this.jti = jti;
+        this.type = type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * 是否为刷新Token
+     */
+    public boolean isRefreshToken() {
+        return REFRESH_TYPE.equals(type);
+    }
+
+    /**
+     * 是否已过期
+     */
+    public boolean isExpired() {
+        return expiration != null && expiration.getTime() < System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,174 @@
+package com.kkreal.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 可扩容的布隆过滤器（Scalable Bloom Filter）
+ * <p>
+ * 由若干个定长分片组成，当前分片写满后追加一个容量翻倍、误判率减半的新分片，
+ * 元素数量超过预估值时整体误判率仍收敛在配置值附近。线程安全，不支持删除。
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final List<Slice> slices = new CopyOnWriteArrayList<>();
+
+    private final double falsePositiveRate;
+
+    private volatile Slice current;
+
+    public ScalableBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("预估元素数必须大于0，误判率必须在(0, 1)之间");
+        }
+        // 各分片误判率按几何级数递减，总和不超过配置值
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = new Slice(expectedInsertions, falsePositiveRate * (1 - TIGHTENING_RATIO));
+        slices.add(current);
+    }
+
+    public void put(String value) {
+        long hash = hash(value);
+        Slice slice = current;
+        if (slice.isFull()) {
+            slice = grow(slice);
+        }
+        slice.put(hash);
+    }
+
+    /**
+     * @return false 表示一定不存在；true 表示可能存在
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 已写入的元素数（重复写入会重复计数）
+     */
+    public long size() {
+        long size = 0;
+        for (Slice slice : slices) {
+            size += slice.count.get();
+        }
+        return size;
+    }
+
+    /**
+     * 按当前填充程度估算的误判率
+     */
+    public double expectedFalsePositiveRate() {
+        double notFalsePositive = 1.0;
+        for (Slice slice : slices) {
+            notFalsePositive *= 1 - slice.expectedFalsePositiveRate();
+        }
+        return 1 - notFalsePositive;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    private synchronized Slice grow(Slice full) {
+        if (current != full) {
+            return current;
+        }
+        Slice next = new Slice(full.capacity * GROWTH_FACTOR, full.falsePositiveRate * TIGHTENING_RATIO);
+        slices.add(next);
+        current = next;
+        return next;
+    }
+
+    /**
+     * UTF-8编码后的64位FNV-1a，再经murmur3 fmix64混合
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Slice {
+
+        private final int capacity;
+
+        private final double falsePositiveRate;
+
+        private final long numBits;
+
+        private final int numHashes;
+
+        private final AtomicLongArray bits;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Slice(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.numBits = Math.max(64, (optimalBits + 63) / 64 * 64);
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray((int) (numBits / 64));
+        }
+
+        private boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        private void put(long hash) {
+            // Kirsch-Mitzenmacher：用两个哈希值线性组合出k个位置
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % numBits;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long old;
+                do {
+                    old = bits.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, old, old | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashes; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % numBits;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) numHashes * count.get() / numBits), numHashes);
+        }
+    }
+}
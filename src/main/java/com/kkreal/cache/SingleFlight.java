@@ -0,0 +1,106 @@
+package com.kkreal.cache;
+
+import com.kkreal.common.ResultCode;
+import com.kkreal.exception.BusinessException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 相同key的并发调用合并为一次执行
+ * <p>
+ * 第一个调用者在自己的线程上执行loader，执行期间到达的相同key调用等待并共享其结果（包括异常）。
+ * 等待超过超时时间抛出 {@link BusinessException}，不会再各自回源。
+ * 数据变更后调用 {@link #forget} 摘除进行中的执行，之后到达的调用重新执行，不再共享变更前的结果。
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final long timeoutMillis;
+
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder collapsed = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            collapsed.increment();
+            return await(existing);
+        }
+        executed.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 摘除该key进行中的执行：已在等待的调用仍拿到它的结果，之后的调用重新执行loader
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * 实际执行loader的次数
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * 被合并、共享其他调用结果的次数
+     */
+    public long getCollapsedCount() {
+        return collapsed.sum();
+    }
+
+    /**
+     * 等待超时的次数
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE.getCode(), "查询超时，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE.getCode(), "查询被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
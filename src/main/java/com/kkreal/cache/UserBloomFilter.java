@@ -0,0 +1,244 @@
+package com.kkreal.cache;
+
+import com.kkreal.entity.User;
+import com.kkreal.mapper.UserMapper;
+import com.kkreal.service.UserChangeListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 用户名、邮箱的布隆过滤器
+ * <p>
+ * 按用户名、邮箱查询前先检查过滤器，一定不存在的值直接返回null，不再查询缓存和数据库。
+ * 启动后从数据库流式构建，新增、修改的用户通过 {@link UserChangeListener} 加入；
+ * 布隆过滤器不支持删除，已删除或改名的旧值由定期重建清理。构建完成前所有查询照常回源。
+ * <p>
+ * "一定不存在"只在所有写入都经过本进程时成立：多实例部署、远程消息队列消费者写库、直接写库产生的新用户
+ * 在下一次重建前会被误判为不存在（查询返回null、登录失败）。实例之间没有失效通知，
+ * 因此默认关闭，仅单实例部署时开启。
+ */
+@Component
+@Slf4j
+public class UserBloomFilter implements UserChangeListener, MeterBinder {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${user.bloom.enabled:false}")
+    private boolean enabled;
+
+    @Value("${user.bloom.expected-insertions:100000}")
+    private int expectedInsertions;
+
+    @Value("${user.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${user.bloom.rebuild-interval-minutes:60}")
+    private long rebuildIntervalMinutes;
+
+    private final Guard username = new Guard("username");
+
+    private final Guard email = new Guard("email");
+
+    private ScheduledExecutorService rebuilder;
+
+    /**
+     * 应用启动完成后异步构建，之后按固定间隔重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-bloom-filter-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * 根据用户名查询，过滤器判定不存在时不调用loader
+     */
+    public User getByUsername(String value, Function<String, User> loader) {
+        return username.get(value, loader);
+    }
+
+    /**
+     * 根据邮箱查询，过滤器判定不存在时不调用loader
+     */
+    public User getByEmail(String value, Function<String, User> loader) {
+        return email.get(value, loader);
+    }
+
+    @Override
+    public void onUserSaved(User user) {
+        // 部分更新时未提交的字段为null，不影响过滤器
+        username.put(user.getUsername());
+        email.put(user.getEmail());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Guard guard : new Guard[]{username, email}) {
+            FunctionCounter.builder("user.bloom.lookups", guard.absent, LongAdder::sum)
+                    .tag("field", guard.field).tag("result", "absent")
+                    .description("过滤器判定一定不存在、未回源的查询次数")
+                    .register(registry);
+            FunctionCounter.builder("user.bloom.lookups", guard.present, LongAdder::sum)
+                    .tag("field", guard.field).tag("result", "present")
+                    .description("过滤器判定可能存在且确实存在的查询次数")
+                    .register(registry);
+            FunctionCounter.builder("user.bloom.lookups", guard.falsePositive, LongAdder::sum)
+                    .tag("field", guard.field).tag("result", "false_positive")
+                    .description("过滤器判定可能存在但实际不存在的查询次数")
+                    .register(registry);
+            Gauge.builder("user.bloom.false.positive.rate", guard, Guard::observedFalsePositiveRate)
+                    .tag("field", guard.field)
+                    .description("实际误判率：误判次数 / 实际不存在的查询次数")
+                    .register(registry);
+            Gauge.builder("user.bloom.expected.false.positive.rate", guard, Guard::expectedFalsePositiveRate)
+                    .tag("field", guard.field)
+                    .description("按过滤器填充程度估算的误判率")
+                    .register(registry);
+        }
+    }
+
+    private void rebuild() {
+        try {
+            long startTime = System.currentTimeMillis();
+            username.beginBuild();
+            email.beginBuild();
+            userMapper.streamAll(context -> {
+                User user = context.getResultObject();
+                username.putBuilding(user.getUsername());
+                email.putBuilding(user.getEmail());
+            });
+            username.finishBuild();
+            email.finishBuild();
+            log.info("[PERFORMANCE] 用户布隆过滤器构建完成，元素数: {}，耗时 {} ms",
+                    username.filter.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            // 重建失败保留旧过滤器；首次构建失败则继续全部回源
+            username.abortBuild();
+            email.abortBuild();
+            log.error("用户布隆过滤器构建失败，错误: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 与MySQL默认排序规则一致：不区分大小写，忽略末尾空格
+     */
+    private static String normalize(String value) {
+        return value.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+    private final class Guard {
+
+        private final String field;
+
+        private final LongAdder absent = new LongAdder();
+
+        private final LongAdder present = new LongAdder();
+
+        private final LongAdder falsePositive = new LongAdder();
+
+        // 构建完成前为null
+        private volatile ScalableBloomFilter filter;
+
+        // 重建期间的新过滤器，写路径同时写入新旧两个过滤器
+        private volatile ScalableBloomFilter building;
+
+        private Guard(String field) {
+            this.field = field;
+        }
+
+        private User get(String value, Function<String, User> loader) {
+            ScalableBloomFilter current = filter;
+            if (current == null || value == null) {
+                return loader.apply(value);
+            }
+            if (!current.mightContain(normalize(value))) {
+                absent.increment();
+                return null;
+            }
+            User user = loader.apply(value);
+            if (user == null) {
+                falsePositive.increment();
+            } else {
+                present.increment();
+            }
+            return user;
+        }
+
+        private void put(String value) {
+            if (value == null) {
+                return;
+            }
+            String key = normalize(value);
+            // 先写新过滤器再写旧过滤器，切换时新过滤器不会漏掉这次写入
+            ScalableBloomFilter next = building;
+            if (next != null) {
+                next.put(key);
+            }
+            ScalableBloomFilter current = filter;
+            if (current != null) {
+                current.put(key);
+            }
+        }
+
+        private void putBuilding(String value) {
+            if (value != null) {
+                building.put(normalize(value));
+            }
+        }
+
+        private void beginBuild() {
+            building = new ScalableBloomFilter(expectedInsertions, falsePositiveRate);
+        }
+
+        private void finishBuild() {
+            filter = building;
+            building = null;
+        }
+
+        private void abortBuild() {
+            building = null;
+        }
+
+        private double observedFalsePositiveRate() {
+            long falsePositives = falsePositive.sum();
+            long negatives = falsePositives + absent.sum();
+            return negatives == 0 ? 0 : (double) falsePositives / negatives;
+        }
+
+        private double expectedFalsePositiveRate() {
+            ScalableBloomFilter current = filter;
+            return current == null ? 0 : current.expectedFalsePositiveRate();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.kkreal.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.kkreal.entity.User;
+import com.kkreal.service.UserChangeListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 用户本地缓存
+ * <p>
+ * 以用户ID为主键缓存用户实体，用户名、邮箱只保存到ID的索引。
+ * 通过索引命中时会校验实体上的用户名/邮箱，索引过期不会返回错误的用户。
+ * 未命中时相同key的并发回源通过 {@link SingleFlight} 合并为一次数据库查询。
+ */
+@Component
+public class UserCache implements UserChangeListener, MeterBinder {
+
+    private final Cache<Long, User> byId;
+
+    private final Cache<String, Long> idByUsername;
+
+    private final Cache<String, Long> idByEmail;
+
+    private final SingleFlight<Long, User> idLoads;
+
+    private final SingleFlight<String, User> usernameLoads;
+
+    private final SingleFlight<String, User> emailLoads;
+
+    // 失效计数，用于丢弃失效之前发起的回源结果
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserCache(@Value("${user.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${user.cache.expire-seconds:300}") long expireSeconds,
+                     @Value("${user.cache.coalesce-timeout-ms:3000}") long coalesceTimeoutMillis) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.idByUsername = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS)
+                .build();
+        this.idLoads = new SingleFlight<>(coalesceTimeoutMillis);
+        this.usernameLoads = new SingleFlight<>(coalesceTimeoutMillis);
+        this.emailLoads = new SingleFlight<>(coalesceTimeoutMillis);
+    }
+
+    /**
+     * 根据ID查询，未命中时调用loader回源，loader返回null时不缓存；id为null时返回null
+     */
+    public User getById(Long id, Function<Long, User> loader) {
+        if (id == null) {
+            return null;
+        }
+        User user = byId.getIfPresent(id);
+        if (user != null) {
+            return user;
+        }
+        return load(idLoads, id, loader);
+    }
+
+    /**
+     * 根据用户名查询，用户名为空时返回null
+     */
+    public User getByUsername(String username, Function<String, User> loader) {
+        if (username == null || username.isBlank()) {
+            return null;
+        }
+        Long id = idByUsername.getIfPresent(username);
+        if (id != null) {
+            User user = byId.getIfPresent(id);
+            if (user != null && username.equals(user.getUsername())) {
+                return user;
+            }
+        }
+        return load(usernameLoads, username, loader);
+    }
+
+    /**
+     * 根据邮箱查询，邮箱为空时返回null
+     */
+    public User getByEmail(String email, Function<String, User> loader) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        Long id = idByEmail.getIfPresent(email);
+        if (id != null) {
+            User user = byId.getIfPresent(id);
+            if (user != null && email.equals(user.getEmail())) {
+                return user;
+            }
+        }
+        return load(emailLoads, email, loader);
+    }
+
+    /**
+     * 只查缓存，不回源
+     */
+    public User peek(Long id) {
+        return id == null ? null : byId.getIfPresent(id);
+    }
+
+    /**
+     * 当前失效计数，配合 {@link #putIfUnchanged} 使用
+     */
+    public long invalidationStamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * 失效计数仍为 stamp 时写入（期间没有任何用户变更），缓存中已有相同或更新版本时不覆盖
+     * <p>
+     * 用于写入更新后合并得到的实体：并发的其他更新会使计数变化，避免把较旧的合并结果写回缓存
+     *
+     * @return 是否写入
+     */
+    public boolean putIfUnchanged(User user, long stamp) {
+        if (user == null || user.getId() == null) {
+            return false;
+        }
+        boolean[] written = new boolean[1];
+        byId.asMap().compute(user.getId(), (id, cached) -> {
+            if (stamp != invalidations.get()
+                    || (cached != null && cached.getVersion() != null && user.getVersion() != null
+                    && cached.getVersion() >= user.getVersion())) {
+                return cached;
+            }
+            written[0] = true;
+            return user;
+        });
+        if (written[0]) {
+            index(user);
+        }
+        return written[0];
+    }
+
+    @Override
+    public void onUserSaved(User user) {
+        invalidate(user);
+    }
+
+    @Override
+    public void onUserDeleted(User user) {
+        invalidate(user);
+    }
+
+    /**
+     * 使某个用户的ID、用户名、邮箱三个键同时失效
+     * <p>
+     * 传入的用户可能只包含部分字段（如更新请求），已缓存的旧版本对应的键也会一并失效
+     */
+    public void invalidate(User user) {
+        if (user == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        if (user.getId() != null) {
+            User cached = byId.asMap().remove(user.getId());
+            invalidateIndexes(cached);
+            idLoads.forget(user.getId());
+        }
+        invalidateIndexes(user);
+    }
+
+    /**
+     * 根据ID失效
+     */
+    public void invalidateById(Long id) {
+        User user = new User();
+        user.setId(id);
+        invalidate(user);
+    }
+
+    /**
+     * 缓存统计信息（命中、未命中、淘汰次数等）
+     */
+    public CacheStats stats() {
+        return byId.stats();
+    }
+
+    /**
+     * 当前缓存的用户数量（近似值）
+     */
+    public long size() {
+        return byId.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, "id", idLoads);
+        bindTo(registry, "username", usernameLoads);
+        bindTo(registry, "email", emailLoads);
+    }
+
+    private static void bindTo(MeterRegistry registry, String key, SingleFlight<?, ?> loads) {
+        FunctionCounter.builder("user.cache.loads", loads, SingleFlight::getExecutedCount)
+                .tag("key", key).tag("result", "executed")
+                .description("缓存未命中后实际查询数据库的次数")
+                .register(registry);
+        FunctionCounter.builder("user.cache.loads", loads, SingleFlight::getCollapsedCount)
+                .tag("key", key).tag("result", "collapsed")
+                .description("与进行中的相同查询合并、未查询数据库的次数")
+                .register(registry);
+        FunctionCounter.builder("user.cache.loads", loads, SingleFlight::getTimeoutCount)
+                .tag("key", key).tag("result", "timeout")
+                .description("等待合并查询结果超时的次数")
+                .register(registry);
+    }
+
+    private <K> User load(SingleFlight<K, User> loads, K key, Function<K, User> loader) {
+        return loads.execute(key, () -> {
+            long version = invalidations.get();
+            User user = loader.apply(key);
+            if (user != null && user.getId() != null) {
+                // 在compute内比较失效计数，与 invalidate 中对同一ID的remove互斥，
+                // 回源期间发生过失效时不写入，避免把旧数据写回缓存
+                byId.asMap().compute(user.getId(), (id, cached) -> version == invalidations.get() ? user : cached);
+                if (version == invalidations.get()) {
+                    index(user);
+                }
+            }
+            return user;
+        });
+    }
+
+    private void index(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        if (user.getUsername() != null) {
+            idByUsername.put(user.getUsername(), user.getId());
+        }
+        if (user.getEmail() != null) {
+            idByEmail.put(user.getEmail(), user.getId());
+        }
+    }
+
+    /**
+     * 失效用户名、邮箱索引，并摘除这两个键上进行中的回源（它们可能读到了变更前的数据）
+     */
+    private void invalidateIndexes(User user) {
+        if (user == null) {
+            return;
+        }
+        if (user.getUsername() != null) {
+            idByUsername.invalidate(user.getUsername());
+            usernameLoads.forget(user.getUsername());
+        }
+        if (user.getEmail() != null) {
+            idByEmail.invalidate(user.getEmail());
+            emailLoads.forget(user.getEmail());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.kkreal.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kkreal.common.ResultCode;
+import com.kkreal.entity.User;
+import com.kkreal.service.UserChangeListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 用户查询响应体缓存
+ * <p>
+ * 缓存用户实体序列化后的JSON字节，按用户ID和版本（ETag）匹配，命中时直接写出
+ * {@code {"code":200,"message":"操作成功","data":<缓存字节>,"timestamp":<当前时间>}}，不再经过Jackson。
+ * 用户更新、删除时通过 {@link UserChangeListener} 失效；版本不一致的条目即使未失效也不会被使用。
+ */
+@Component
+public class UserResponseCache implements UserChangeListener {
+
+    private static final byte[] TIMESTAMP_FIELD = ",\"timestamp\":".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Long, Entry> bodies;
+
+    // Result.success(user) 中 data 之前的部分，与 Result 字段顺序一致
+    private final byte[] successPrefix;
+
+    public UserResponseCache(ObjectMapper objectMapper,
+                             @Value("${user.response-cache.maximum-bytes:16777216}") long maximumBytes) {
+        this.objectMapper = objectMapper;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Long id, Entry entry) -> entry.data.length)
+                .build();
+        try {
+            this.successPrefix = ("{\"code\":" + ResultCode.SUCCESS.getCode()
+                    + ",\"message\":" + objectMapper.writeValueAsString(ResultCode.SUCCESS.getMessage())
+                    + ",\"data\":").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 以 Result.success(user) 的JSON格式写出用户
+     *
+     * @param version 用户当前版本（ETag），与缓存条目不一致时重新序列化
+     */
+    public void writeSuccess(User user, String version, HttpServletResponse response) throws IOException {
+        byte[] data = getBody(user, version);
+        byte[] timestamp = Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(successPrefix.length + data.length + TIMESTAMP_FIELD.length + timestamp.length + 1);
+        ServletOutputStream out = response.getOutputStream();
+        out.write(successPrefix);
+        out.write(data);
+        out.write(TIMESTAMP_FIELD);
+        out.write(timestamp);
+        out.write('}');
+    }
+
+    @Override
+    public void onUserSaved(User user) {
+        invalidate(user);
+    }
+
+    @Override
+    public void onUserDeleted(User user) {
+        invalidate(user);
+    }
+
+    /**
+     * 当前缓存的响应体数量（近似值）
+     */
+    public long size() {
+        return bodies.estimatedSize();
+    }
+
+    private byte[] getBody(User user, String version) {
+        Entry entry = bodies.getIfPresent(user.getId());
+        if (entry != null && entry.version.equals(version)) {
+            return entry.data;
+        }
+        byte[] data;
+        try {
+            data = objectMapper.writeValueAsBytes(user);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        bodies.put(user.getId(), new Entry(version, data));
+        return data;
+    }
+
+    private void invalidate(User user) {
+        if (user != null && user.getId() != null) {
+            bodies.invalidate(user.getId());
+        }
+    }
+
+    private record Entry(String version, byte[] data) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.kkreal.common;
+
+import java.io.Serializable;
+
+/**
+ * 批量操作中单条记录的处理结果
+ */
+public class BatchItemResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // 在请求数组中的下标
+    private Integer index;
+
+    // 记录ID
+    private Long id;
+
+    // 是否成功
+    private boolean success;
+
+    // 失败原因
+    private String message;
+
+    public BatchItemResult() {
+    }
+
+    public BatchItemResult(Integer index, Long id, boolean success, String message) {
+        this.index = index;
+        this.id = id;
+        this.success = success;
+        this.message = message;
+    }
+
+    /**
+     * 成功
+     */
+    public static BatchItemResult success(int index, Long id) {
+        return new BatchItemResult(index, id, true, null);
+    }
+
+    /**
+     * 失败
+     */
+    public static BatchItemResult failure(int index, Long id, String message) {
+        return new BatchItemResult(index, id, false, message);
+    }
+
+    // Getters and Setters
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
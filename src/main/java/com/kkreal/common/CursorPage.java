@@ -0,0 +1,100 @@
+package com.kkreal.common;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 游标分页结果（keyset分页）
+ * @param <T> 数据类型
+ */
+public class CursorPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    // 当前页数据
+    private List<T> records;
+
+    // 下一页游标，没有更多数据时为null
+    private String nextCursor;
+
+    // 是否还有下一页
+    private boolean hasMore;
+
+    // 总记录数，仅在请求时统计
+    private Long total;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> records, String nextCursor, boolean hasMore, Long total) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.total = total;
+    }
+
+    /**
+     * 将最后一条记录的ID编码为不透明游标
+     */
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，返回最后一条记录的ID；游标为空时返回null
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return Long.parseLong(value.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException 也是 IllegalArgumentException
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    // Getters and Setters
+    public List<T> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<T> records) {
+        this.records = records;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+}
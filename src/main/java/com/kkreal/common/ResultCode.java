@@ -14,6 +14,7 @@ public enum ResultCode {
     FORBIDDEN(403, "禁止访问"),
     NOT_FOUND(404, "资源不存在"),
     METHOD_NOT_ALLOWED(405, "请求方法不支持"),
+    TOO_MANY_REQUESTS(429, "服务繁忙，请稍后重试"),
     
     // 服务端错误 5xx
     ERROR(500, "系统内部错误"),
@@ -24,6 +25,7 @@ public enum ResultCode {
     VALIDATION_ERROR(1001, "数据验证失败"),
     DUPLICATE_KEY_ERROR(1002, "数据已存在"),
     DATA_NOT_FOUND(1003, "数据不存在"),
+    VERSION_CONFLICT(1004, "数据已被修改，请刷新后重试"),
     
     // 数据库错误 2xxx
     DATABASE_ERROR(2000, "数据库操作失败"),
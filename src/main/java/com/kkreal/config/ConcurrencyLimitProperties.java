@@ -0,0 +1,48 @@
+package com.kkreal.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 自适应并发限制配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    // 初始并发上限，之后根据延迟自动调整
+    private int initialLimit = 50;
+
+    private int minLimit = 10;
+
+    private int maxLimit = 500;
+
+    // 每多少个完成的请求调整一次上限
+    private int sampleWindow = 50;
+
+    // 新上限的平滑系数，越大调整越快
+    private double smoothing = 0.2;
+
+    // 近期延迟不超过基线的该倍数时不降低上限
+    private double rttTolerance = 1.5;
+
+    // 普通、低优先级请求可使用的并发上限比例，高优先级可使用全部
+    private double normalPriorityShare = 0.9;
+
+    private double lowPriorityShare = 0.75;
+
+    // 高优先级接口（Ant风格路径）
+    private List<String> highPriorityPaths = new ArrayList<>(List.of("/auth/login", "/auth/refresh"));
+
+    // 低优先级接口（Ant风格路径）
+    private List<String> lowPriorityPaths = new ArrayList<>(List.of(
+            "/api/users/search", "/api/users/page", "/api/users/batch",
+            "/api/reactive/users/search"));
+}
@@ -0,0 +1,36 @@
+package com.kkreal.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JWT密钥配置
+ * <p>
+ * jwt.secret 作为kid为 default 的密钥，jwt.keys 可再配置多把密钥用于轮换，
+ * jwt.active-kid 指定签发新Token使用的密钥。
+ * 配置 jwt.keys-file 后，文件中的密钥和 active-kid 会定期重新加载，轮换无需重启
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtKeyProperties {
+
+    // 签发Token使用的密钥ID
+    private String activeKid = "default";
+
+    // 其他可用于校验的密钥，kid -> secret
+    private Map<String, String> keys = new LinkedHashMap<>();
+
+    // 可在运行时修改的密钥文件（properties格式，kid=secret，另可写 active-kid=...），为空表示不使用
+    private String keysFile = "";
+
+    // 检查密钥文件是否变更的间隔
+    private long reloadIntervalSeconds = 30;
+
+    // 是否继续接受升级前以 signWith(HS512, secret) 签发、不带kid的Token
+    private boolean legacyVerifier = true;
+}
@@ -0,0 +1,23 @@
+package com.kkreal.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 指标配置类
+ * <p>
+ * 启用 {@code @Timed} 注解：被注解类的每个方法按 class、method 标签记录纳秒级耗时。
+ * /actuator/metrics/{name} 提供调用次数、总耗时和最大值；注解中配置的百分位在本地计算，
+ * 发布为单独的 {name}.percentile 指标，以 phi 标签区分（如 /actuator/metrics/user.service.percentile?tag=phi:0.99）。
+ * 本地计算的百分位不能跨实例聚合
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
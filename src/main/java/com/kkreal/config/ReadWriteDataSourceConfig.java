@@ -0,0 +1,92 @@
+package com.kkreal.config;
+
+import com.kkreal.datasource.ReadAfterWriteKeys;
+import com.kkreal.datasource.ReadWriteRoutingDataSource;
+import com.kkreal.entity.User;
+import com.kkreal.service.UserChangeListener;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 读写分离数据源配置（datasource.read-write.enabled=true 时启用）
+ * <p>
+ * spring.datasource 仍作为主库连接池，对外暴露的主DataSource换成 {@link ReadWriteRoutingDataSource}，
+ * MyBatis、事务管理器、SQL初始化都通过它获取连接
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.read-write.enabled", havingValue = "true")
+@Slf4j
+public class ReadWriteDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public ReadWriteRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                                 DataSourceProperties primaryProperties,
+                                                 ReadWriteDataSourceProperties properties) {
+        List<ReadWriteRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReadWriteDataSourceProperties.Replica config = properties.getReplicas().get(i);
+            String name = config.getName() != null ? config.getName() : "replica-" + (i + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setJdbcUrl(config.getUrl());
+            replica.setUsername(config.getUsername() != null ? config.getUsername() : primaryProperties.determineUsername());
+            replica.setPassword(config.getPassword() != null ? config.getPassword() : primaryProperties.determinePassword());
+            replica.setDriverClassName(config.getDriverClassName() != null
+                    ? config.getDriverClassName() : primaryProperties.determineDriverClassName());
+            replica.setMaximumPoolSize(config.getMaximumPoolSize());
+            replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            replica.setReadOnly(true);
+            replicas.add(new ReadWriteRoutingDataSource.Replica(name, replica));
+            log.info("读写分离已启用，从库: {}，URL: {}", name, config.getUrl());
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, properties.getFailureThreshold(),
+                properties.getHealthCheckIntervalMs(), properties.getHealthCheckTimeoutSeconds(),
+                properties.getReadAfterWriteWindowMs(), properties.getReadAfterWriteMaxKeys(),
+                properties.getMaxReplicaLagSeconds(), properties.getReplicaLagQuery());
+    }
+
+    /**
+     * 用户数据写入后按调用方和该用户的键标记路由数据源，排在缓存失效之前，避免失效后立即从延迟的从库回填旧数据
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public UserChangeListener readAfterWriteListener(ReadWriteRoutingDataSource dataSource) {
+        return new UserChangeListener() {
+            @Override
+            public void onUserSaved(User user) {
+                dataSource.markWrite(writeKeys(user));
+            }
+
+            @Override
+            public void onUserDeleted(User user) {
+                dataSource.markWrite(writeKeys(user));
+            }
+        };
+    }
+
+    private static List<String> writeKeys(User user) {
+        return Arrays.asList(ReadAfterWriteKeys.caller(), ReadAfterWriteKeys.user(user.getId()),
+                ReadAfterWriteKeys.user(user.getUsername()), ReadAfterWriteKeys.user(user.getEmail()));
+    }
+}
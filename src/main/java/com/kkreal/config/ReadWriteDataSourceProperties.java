@@ -0,0 +1,66 @@
+package com.kkreal.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置
+ * <p>
+ * spring.datasource 作为主库，datasource.read-write.replicas 配置只读从库；
+ * 未启用或未配置从库时所有请求都走主库
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "datasource.read-write")
+public class ReadWriteDataSourceProperties {
+
+    // 是否启用读写分离
+    private boolean enabled = false;
+
+    // 只读从库
+    private List<Replica> replicas = new ArrayList<>();
+
+    // 从库健康检查间隔（毫秒）
+    private long healthCheckIntervalMs = 5000;
+
+    // 健康检查校验连接的超时时间（秒）
+    private int healthCheckTimeoutSeconds = 2;
+
+    // 连续失败多少次后摘除从库
+    private int failureThreshold = 3;
+
+    // 调用方或用户被写入后，该时间窗口内相关的读请求仍走主库，应大于从库的典型复制延迟（毫秒）
+    private long readAfterWriteWindowMs = 1000;
+
+    // 读写窗口内同时记录的键数上限
+    private long readAfterWriteMaxKeys = 100000;
+
+    // 复制延迟上限（秒），超过时摘除从库；0表示不检查
+    private long maxReplicaLagSeconds = 5;
+
+    // 查询复制延迟的语句；MySQL 8.0.22 之前为 SHOW SLAVE STATUS，也可以是返回延迟秒数的心跳表查询
+    private String replicaLagQuery = "SHOW REPLICA STATUS";
+
+    @Data
+    public static class Replica {
+
+        // 从库名称，用于日志和指标，默认 replica-序号
+        private String name;
+
+        private String url;
+
+        // 用户名、密码、驱动未配置时与主库相同
+        private String username;
+
+        private String password;
+
+        private String driverClassName;
+
+        // 连接池大小
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,34 @@
+package com.kkreal.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kkreal.ingest.LocalUserIngestChannel;
+import com.kkreal.ingest.RocketMqUserIngestChannel;
+import com.kkreal.ingest.UserIngestChannel;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户异步写入队列配置（user.ingest.enabled=true 时启用），按 user.ingest.mode 选择队列实现
+ */
+@Configuration
+@ConditionalOnProperty(name = "user.ingest.enabled", havingValue = "true")
+public class UserIngestConfig {
+
+    // 关闭时等待本地队列写完的最长时间
+    private static final long LOCAL_SHUTDOWN_TIMEOUT_MS = 10000;
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "user.ingest.mode", havingValue = "local", matchIfMissing = true)
+    public UserIngestChannel localUserIngestChannel(UserIngestProperties properties) {
+        return new LocalUserIngestChannel(properties, LOCAL_SHUTDOWN_TIMEOUT_MS);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "user.ingest.mode", havingValue = "rocketmq")
+    public UserIngestChannel rocketMqUserIngestChannel(UserIngestProperties properties,
+                                                       ObjectMapper objectMapper) throws MQClientException {
+        return new RocketMqUserIngestChannel(properties, objectMapper);
+    }
+}
@@ -0,0 +1,64 @@
+package com.kkreal.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户异步写入配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "user.ingest")
+public class UserIngestProperties {
+
+    // 开启后 POST /api/users 只入队并返回预分配的ID，由消费者批量写库
+    private boolean enabled = false;
+
+    // 队列实现：local 为进程内队列（不持久化，用于本地和压测），rocketmq 为RocketMQ
+    private String mode = "local";
+
+    // 每批最多写入的记录数
+    private int batchSize = 500;
+
+    // 凑批最长等待时间，到时间后不足一批也写入
+    private long maxWaitMs = 50;
+
+    // 写入失败后的最大重试次数，超过后进入死信队列
+    private int maxRetries = 3;
+
+    // 第一次重试的延迟，之后每次翻倍
+    private long retryBackoffMs = 1000;
+
+    // 消费线程数
+    private int consumerThreads = 2;
+
+    private Local local = new Local();
+
+    private RocketMq rocketmq = new RocketMq();
+
+    @Data
+    public static class Local {
+
+        // 队列容量，满时拒绝新的创建请求
+        private int queueCapacity = 100000;
+
+        // 内存中保留的死信条数
+        private int deadLetterCapacity = 1000;
+    }
+
+    @Data
+    public static class RocketMq {
+
+        private String nameServer = "localhost:9876";
+
+        private String topic = "user-create";
+
+        private String producerGroup = "kkreal-user-producer";
+
+        // 死信队列为 %DLQ%{consumerGroup}
+        private String consumerGroup = "kkreal-user-ingest";
+
+        private int sendTimeoutMs = 3000;
+    }
+}
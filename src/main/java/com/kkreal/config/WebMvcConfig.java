@@ -1,6 +1,7 @@
 package com.kkreal.config;
 
 import com.kkreal.auth.interceptor.AuthInterceptor;
+import com.kkreal.limit.ConcurrencyLimitInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -15,8 +16,16 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Autowired
     private AuthInterceptor authInterceptor;
 
+    @Autowired
+    private ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 并发限制在认证之前执行，过载时尽早拒绝；流式导出耗时与数据量相关，不计入延迟样本
+        registry.addInterceptor(concurrencyLimitInterceptor)
+                .addPathPatterns("/api/**", "/auth/**")
+                .excludePathPatterns("/api/users/export", "/api/reactive/users/export");
+
         // 注册认证拦截器，拦截除登录、注册等公共接口外的所有请求
         registry.addInterceptor(authInterceptor)
                 .addPathPatterns("/**")  // 拦截所有请求
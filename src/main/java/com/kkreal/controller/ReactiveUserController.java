@@ -0,0 +1,156 @@
+package com.kkreal.controller;
+
+import com.kkreal.common.CursorPage;
+import com.kkreal.common.Result;
+import com.kkreal.common.ResultCode;
+import com.kkreal.entity.User;
+import com.kkreal.exception.BusinessException;
+import com.kkreal.service.ReactiveUserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 用户控制器（响应式版本）
+ * <p>
+ * 与 {@link UserController} 并行部署，接口语义相同。处理方法返回Mono/Flux，
+ * 等待数据库期间不占用Servlet线程；导出接口按客户端消费速度逐条拉取数据。
+ */
+@Tag(name = "用户管理（响应式）", description = "基于R2DBC的非阻塞用户接口，与 /api/users 语义相同")
+@RestController
+@RequestMapping("/api/reactive/users")
+@Slf4j
+public class ReactiveUserController {
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ReactiveUserService reactiveUserService;
+
+    /**
+     * 创建用户
+     */
+    @Operation(summary = "创建用户", description = "创建一个新用户")
+    @PostMapping
+    public Mono<Result<User>> createUser(@RequestBody User user) {
+        log.info("开始创建用户（响应式），用户名: {}", user.getUsername());
+        if (user.getUsername() == null || user.getUsername().trim().isEmpty()) {
+            return Mono.error(new BusinessException("用户名不能为空"));
+        }
+        if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
+            return Mono.error(new BusinessException("邮箱不能为空"));
+        }
+        return reactiveUserService.createUser(user)
+                .map(createdUser -> Result.success("用户创建成功", createdUser));
+    }
+
+    /**
+     * 流式导出所有用户（NDJSON，每行一个用户）
+     */
+    @Operation(summary = "导出所有用户", description = "以NDJSON格式流式导出所有用户，按客户端消费速度从数据库拉取")
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON)
+    public Flux<User> exportUsers() {
+        log.info("开始导出所有用户（响应式）");
+        return reactiveUserService.streamAllUsers();
+    }
+
+    /**
+     * 根据ID查询用户
+     */
+    @Operation(summary = "根据ID查询用户", description = "通过用户ID获取用户详细信息")
+    @GetMapping("/{id}")
+    public Mono<Result<User>> getUserById(
+            @Parameter(description = "用户ID", required = true) @PathVariable Long id) {
+        log.info("开始查询用户（响应式），ID: {}", id);
+        return reactiveUserService.getUserById(id)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("用户不存在")))
+                .map(Result::success);
+    }
+
+    /**
+     * 根据用户名查询用户
+     */
+    @Operation(summary = "根据用户名查询用户", description = "通过用户名获取用户详细信息")
+    @GetMapping("/username/{username}")
+    public Mono<Result<User>> getUserByUsername(
+            @Parameter(description = "用户名", required = true) @PathVariable String username) {
+        log.info("开始根据用户名查询（响应式），用户名: {}", username);
+        return reactiveUserService.getUserByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("用户不存在")))
+                .map(Result::success);
+    }
+
+    /**
+     * 游标分页查询用户
+     */
+    @Operation(summary = "游标分页查询用户", description = "按ID顺序的keyset分页，传入上一页返回的nextCursor获取下一页")
+    @GetMapping("/cursor")
+    public Mono<Result<CursorPage<User>>> getUsersByCursor(
+            @Parameter(description = "上一页返回的游标，不传则从第一页开始") @RequestParam(required = false) String after,
+            @Parameter(description = "每页数量", example = "10") @RequestParam(defaultValue = "10") int pageSize,
+            @Parameter(description = "是否统计总记录数") @RequestParam(defaultValue = "false") boolean withTotal) {
+        log.info("开始游标分页查询用户（响应式），游标: {}，每页: {}", after, pageSize);
+        if (pageSize < 1 || pageSize > MAX_CURSOR_PAGE_SIZE) {
+            return Mono.error(new BusinessException(ResultCode.BAD_REQUEST.getCode(),
+                    "每页数量必须在1到" + MAX_CURSOR_PAGE_SIZE + "之间"));
+        }
+        Long afterId = CursorPage.decodeCursor(after);
+        return reactiveUserService.getUsersByCursor(afterId, pageSize, withTotal)
+                .map(Result::success);
+    }
+
+    /**
+     * 条件查询用户
+     */
+    @Operation(summary = "条件查询用户", description = "根据用户名、邮箱、状态等条件查询用户")
+    @GetMapping("/search")
+    public Mono<Result<List<User>>> searchUsers(
+            @Parameter(description = "用户名（模糊查询）") @RequestParam(required = false) String username,
+            @Parameter(description = "邮箱（模糊查询）") @RequestParam(required = false) String email,
+            @Parameter(description = "状态：0-禁用，1-正常") @RequestParam(required = false) Integer status) {
+        log.info("开始条件查询用户（响应式），用户名: {}，邮箱: {}，状态: {}", username, email, status);
+        return reactiveUserService.getUsersByCondition(username, email, status)
+                .collectList()
+                .map(Result::success);
+    }
+
+    /**
+     * 更新用户
+     */
+    @Operation(summary = "更新用户", description = "更新用户信息")
+    @PutMapping("/{id}")
+    public Mono<Result<User>> updateUser(
+            @Parameter(description = "用户ID", required = true) @PathVariable Long id,
+            @RequestBody User user) {
+        log.info("开始更新用户（响应式），ID: {}", id);
+        user.setId(id);
+        return reactiveUserService.updateUser(user)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("用户更新失败或用户不存在")))
+                .flatMap(success -> reactiveUserService.getUserById(id))
+                .map(updatedUser -> Result.success("用户更新成功", updatedUser));
+    }
+
+    /**
+     * 删除用户
+     */
+    @Operation(summary = "删除用户", description = "根据ID删除用户")
+    @DeleteMapping("/{id}")
+    public Mono<Result<Void>> deleteUser(
+            @Parameter(description = "用户ID", required = true) @PathVariable Long id) {
+        log.info("开始删除用户（响应式），ID: {}", id);
+        return reactiveUserService.deleteUserById(id)
+                .filter(Boolean::booleanValue)
+                .switchIfEmpty(Mono.error(() -> new BusinessException("用户删除失败或用户不存在")))
+                .map(success -> Result.<Void>success("用户删除成功", null));
+    }
+}
@@ -1,17 +1,38 @@
 package com.kkreal.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kkreal.cache.UserResponseCache;
+import com.kkreal.common.BatchItemResult;
+import com.kkreal.common.CursorPage;
 import com.kkreal.common.Result;
+import com.kkreal.common.ResultCode;
 import com.kkreal.entity.User;
 import com.kkreal.exception.BusinessException;
+import com.kkreal.ingest.UserIngestService;
+import com.kkreal.service.UserBatchService;
 import com.kkreal.service.UserService;
+import com.kkreal.util.ETagUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -23,15 +44,37 @@ import java.util.List;
 @Slf4j
 public class UserController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    // 开启异步写入（user.ingest.enabled=true）时存在
+    @Autowired(required = false)
+    private UserIngestService userIngestService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${user.batch.max-size:10000}")
+    private int batchMaxSize;
+
     /**
      * 创建用户
      */
-    @Operation(summary = "创建用户", description = "创建一个新用户")
+    @Operation(summary = "创建用户", description = "创建一个新用户；开启异步写入时返回202和预分配的用户ID，稍后写入数据库")
     @PostMapping
-    public Result<User> createUser(@RequestBody User user) {
+    public Result<User> createUser(@RequestBody User user, HttpServletResponse response) {
         try {
             log.info("开始创建用户，用户名: {}", user.getUsername());
             
@@ -43,6 +86,12 @@ public class UserController {
                 log.error("创建用户失败，邮箱为空");
                 throw new BusinessException("邮箱不能为空");
             }
+            if (userIngestService != null) {
+                User acceptedUser = userIngestService.submit(user);
+                response.setStatus(HttpServletResponse.SC_ACCEPTED);
+                log.info("用户创建请求已受理，ID: {}", acceptedUser.getId());
+                return Result.success("用户创建请求已受理", acceptedUser);
+            }
             User createdUser = userService.createUser(user);
             log.info("用户创建成功，ID: {}", createdUser.getId());
             return Result.success("用户创建成功", createdUser);
@@ -69,13 +118,48 @@ public class UserController {
         }
     }
 
+    /**
+     * 流式导出所有用户（NDJSON，每行一个用户）
+     */
+    @Operation(summary = "导出所有用户", description = "以NDJSON格式流式导出所有用户，内存占用与用户总数无关")
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON)
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        try {
+            log.info("开始导出所有用户");
+            response.setContentType(APPLICATION_NDJSON);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+            // 逐行写出，由Servlet输出缓冲区决定何时刷到网络
+            ObjectWriter writer = objectMapper.writerFor(User.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+            generator.setRootValueSeparator(null);
+            long count = userService.streamAllUsers(user -> {
+                try {
+                    writer.writeValue(generator, user);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+            log.info("导出所有用户完成，总数: {}", count);
+        } catch (Exception e) {
+            log.error("导出所有用户异常，错误: {}", e.getMessage());
+            throw e;
+        }
+    }
+
     /**
      * 根据ID查询用户
      */
     @Operation(summary = "根据ID查询用户", description = "通过用户ID获取用户详细信息")
     @GetMapping("/{id}")
     public Result<User> getUserById(
-            @Parameter(description = "用户ID", required = true) @PathVariable Long id) {
+            @Parameter(description = "用户ID", required = true) @PathVariable Long id,
+            WebRequest webRequest,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         try {
             log.info("开始查询用户，ID: {}", id);
             User user = userService.getUserById(id);
@@ -83,7 +167,18 @@ public class UserController {
                 log.info("用户不存在，ID: {}", id);
                 throw new BusinessException("用户不存在");
             }
+            // 客户端已有相同版本时直接返回304，不序列化响应体
+            String etag = ETagUtil.userETag(user);
+            if (webRequest.checkNotModified(etag)) {
+                log.info("用户未修改，ID: {}", id);
+                return null;
+            }
             log.info("查询用户成功，用户名: {}", user.getUsername());
+            // JSON响应直接写出缓存的序列化结果，CBOR、Smile仍走消息转换器
+            if (acceptsJson(request)) {
+                userResponseCache.writeSuccess(user, etag, response);
+                return null;
+            }
             return Result.success(user);
         } catch (Exception e) {
             log.error("查询用户异常，ID: {}，错误: {}", id, e.getMessage());
@@ -97,7 +192,8 @@ public class UserController {
     @Operation(summary = "根据用户名查询用户", description = "通过用户名获取用户详细信息")
     @GetMapping("/username/{username}")
     public Result<User> getUserByUsername(
-            @Parameter(description = "用户名", required = true) @PathVariable String username) {
+            @Parameter(description = "用户名", required = true) @PathVariable String username,
+            WebRequest webRequest) {
         try {
             log.info("开始根据用户名查询，用户名: {}", username);
             User user = userService.getUserByUsername(username);
@@ -105,6 +201,10 @@ public class UserController {
                 log.info("用户不存在，用户名: {}", username);
                 throw new BusinessException("用户不存在");
             }
+            if (webRequest.checkNotModified(ETagUtil.userETag(user))) {
+                log.info("用户未修改，用户名: {}", username);
+                return null;
+            }
             log.info("根据用户名查询成功，ID: {}", user.getId());
             return Result.success(user);
         } catch (Exception e) {
@@ -120,10 +220,15 @@ public class UserController {
     @GetMapping("/page")
     public Result<Page<User>> getUsersByPage(
             @Parameter(description = "页码", example = "1") @RequestParam(defaultValue = "1") int pageNum,
-            @Parameter(description = "每页数量", example = "10") @RequestParam(defaultValue = "10") int pageSize) {
+            @Parameter(description = "每页数量", example = "10") @RequestParam(defaultValue = "10") int pageSize,
+            WebRequest webRequest) {
         try {
             log.info("开始分页查询用户，页码: {}，每页: {}", pageNum, pageSize);
             Page<User> page = userService.getUsersByPage(pageNum, pageSize);
+            if (webRequest.checkNotModified(ETagUtil.pageETag(page))) {
+                log.info("分页数据未修改，页码: {}，每页: {}", pageNum, pageSize);
+                return null;
+            }
             log.info("分页查询完成，总记录数: {}，总页数: {}", page.getTotal(), page.getPages());
             return Result.success(page);
         } catch (Exception e) {
@@ -132,6 +237,31 @@ public class UserController {
         }
     }
 
+    /**
+     * 游标分页查询用户
+     */
+    @Operation(summary = "游标分页查询用户", description = "按ID顺序的keyset分页，传入上一页返回的nextCursor获取下一页，任意页耗时与第一页相同")
+    @GetMapping("/cursor")
+    public Result<CursorPage<User>> getUsersByCursor(
+            @Parameter(description = "上一页返回的游标，不传则从第一页开始") @RequestParam(required = false) String after,
+            @Parameter(description = "每页数量", example = "10") @RequestParam(defaultValue = "10") int pageSize,
+            @Parameter(description = "是否统计总记录数") @RequestParam(defaultValue = "false") boolean withTotal) {
+        try {
+            log.info("开始游标分页查询用户，游标: {}，每页: {}", after, pageSize);
+            if (pageSize < 1 || pageSize > MAX_CURSOR_PAGE_SIZE) {
+                throw new BusinessException(ResultCode.BAD_REQUEST.getCode(),
+                        "每页数量必须在1到" + MAX_CURSOR_PAGE_SIZE + "之间");
+            }
+            Long afterId = CursorPage.decodeCursor(after);
+            CursorPage<User> page = userService.getUsersByCursor(afterId, pageSize, withTotal);
+            log.info("游标分页查询完成，本页数量: {}，是否还有下一页: {}", page.getRecords().size(), page.isHasMore());
+            return Result.success(page);
+        } catch (Exception e) {
+            log.error("游标分页查询异常，游标: {}，每页: {}，错误: {}", after, pageSize, e.getMessage());
+            throw e;
+        }
+    }
+
     /**
      * 条件查询用户
      */
@@ -156,20 +286,19 @@ public class UserController {
     /**
      * 更新用户
      */
-    @Operation(summary = "更新用户", description = "更新用户信息")
-    @PutMapping("/{id}")
+    @Operation(summary = "更新用户", description = "只更新请求中的非空字段并返回更新后的用户；携带version时按该版本做乐观锁校验")
+    @RequestMapping(value = "/{id}", method = {RequestMethod.PUT, RequestMethod.PATCH})
     public Result<User> updateUser(
             @Parameter(description = "用户ID", required = true) @PathVariable Long id,
             @RequestBody User user) {
         try {
             log.info("开始更新用户，ID: {}", id);
             user.setId(id);
-            boolean success = userService.updateUser(user);
-            if (!success) {
+            User updatedUser = userService.updateUserAndGet(user);
+            if (updatedUser == null) {
                 log.info("用户更新失败，用户不存在，ID: {}", id);
                 throw new BusinessException("用户更新失败或用户不存在");
             }
-            User updatedUser = userService.getUserById(id);
             log.info("用户更新成功，ID: {}", id);
             return Result.success("用户更新成功", updatedUser);
         } catch (Exception e) {
@@ -199,4 +328,87 @@ public class UserController {
             throw e;
         }
     }
+
+    /**
+     * 批量创建用户
+     */
+    @Operation(summary = "批量创建用户", description = "按块批量插入，每块一个事务，返回逐条处理结果")
+    @PostMapping("/batch")
+    public Result<List<BatchItemResult>> createUsers(@RequestBody List<User> users) {
+        try {
+            log.info("开始批量创建用户，数量: {}", users.size());
+            checkBatchSize(users.size());
+            List<BatchItemResult> results = userBatchService.createUsers(users);
+            log.info("批量创建用户完成，数量: {}", results.size());
+            return Result.success(results);
+        } catch (Exception e) {
+            log.error("批量创建用户异常，错误: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 批量更新用户
+     */
+    @Operation(summary = "批量更新用户", description = "按块批量更新，每条记录必须包含ID，返回逐条处理结果")
+    @PutMapping("/batch")
+    public Result<List<BatchItemResult>> updateUsers(@RequestBody List<User> users) {
+        try {
+            log.info("开始批量更新用户，数量: {}", users.size());
+            checkBatchSize(users.size());
+            List<BatchItemResult> results = userBatchService.updateUsers(users);
+            log.info("批量更新用户完成，数量: {}", results.size());
+            return Result.success(results);
+        } catch (Exception e) {
+            log.error("批量更新用户异常，错误: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 批量删除用户
+     */
+    @Operation(summary = "批量删除用户", description = "根据ID数组按块批量删除，返回逐条处理结果")
+    @DeleteMapping("/batch")
+    public Result<List<BatchItemResult>> deleteUsers(@RequestBody List<Long> ids) {
+        try {
+            log.info("开始批量删除用户，数量: {}", ids.size());
+            checkBatchSize(ids.size());
+            List<BatchItemResult> results = userBatchService.deleteUsers(ids);
+            log.info("批量删除用户完成，数量: {}", results.size());
+            return Result.success(results);
+        } catch (Exception e) {
+            log.error("批量删除用户异常，错误: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    private static boolean acceptsJson(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isEmpty()) {
+            return true;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            // 按客户端偏好顺序，第一个可用的格式是JSON才走缓存
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return true;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)
+                    || mediaType.isCompatibleWith(SMILE)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > batchMaxSize) {
+            throw new BusinessException(ResultCode.BAD_REQUEST.getCode(), "单次批量操作不能超过" + batchMaxSize + "条");
+        }
+    }
 }
@@ -0,0 +1,33 @@
+package com.kkreal.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 读写一致性的键
+ * <p>
+ * 写入用户数据时记录调用方和被写入用户的键，读取时带上调用方和所查用户的键，
+ * 两者有交集且仍在时间窗口内时读请求走主库：调用方能读到自己刚写入的数据，
+ * 刚被修改的用户不会从延迟的从库回填进缓存，其他读请求照常走从库。
+ */
+public final class ReadAfterWriteKeys {
+
+    private ReadAfterWriteKeys() {
+    }
+
+    /**
+     * 当前请求的调用方（认证拦截器写入的用户名），不在HTTP请求线程中或未认证时返回null
+     */
+    public static String caller() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object username = attributes != null ? attributes.getAttribute("username", RequestAttributes.SCOPE_REQUEST) : null;
+        return username != null ? "caller:" + username : null;
+    }
+
+    /**
+     * 用户数据的键（ID、用户名或邮箱），value为null时返回null
+     */
+    public static String user(Object value) {
+        return value != null ? "user:" + value : null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.kkreal.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记只读方法：启用读写分离时，方法内获取的数据库连接路由到从库
+ * <p>
+ * 方法内不能有写操作；开启了事务的调用按事务开始时的路由使用同一个连接。
+ * 调用方在读写窗口内写入过数据时，其读请求仍走主库
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnly {
+
+    /**
+     * 是否以第一个参数（用户ID、用户名或邮箱）作为读写一致性的键，该用户刚被写入时走主库
+     */
+    boolean keyed() default false;
+}
@@ -0,0 +1,38 @@
+package com.kkreal.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 为 {@link ReadOnly} 方法设置只读路由标记，并带上调用方和所查用户的读写一致性键
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "datasource.read-write.enabled", havingValue = "true")
+public class ReadOnlyRoutingAspect {
+
+    @Around("@annotation(readOnly)")
+    public Object routeToReplica(ProceedingJoinPoint joinPoint, ReadOnly readOnly) throws Throwable {
+        List<String> keys = new ArrayList<>(2);
+        String caller = ReadAfterWriteKeys.caller();
+        if (caller != null) {
+            keys.add(caller);
+        }
+        Object[] args = joinPoint.getArgs();
+        if (readOnly.keyed() && args.length > 0 && args[0] != null) {
+            keys.add(ReadAfterWriteKeys.user(args[0]));
+        }
+        List<String> previous = ReadWriteRoutingDataSource.enterReadOnly(keys);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadWriteRoutingDataSource.restoreReadOnly(previous);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.kkreal.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读写分离数据源
+ * <p>
+ * 默认所有连接来自主库；在 {@link ReadOnly} 方法内获取连接时按轮询选择一个健康的从库。
+ * 从库获取连接连续失败达到阈值即被摘除，由后台健康检查在恢复后重新加入；没有健康从库时回退到主库。
+ * 健康检查同时查询复制延迟，超过上限的从库立即摘除，延迟恢复后重新加入。
+ * <p>
+ * 读写一致性按键区分（见 {@link ReadAfterWriteKeys}）：写入时记录调用方和被写入用户的键，
+ * 只读方法带有的键在时间窗口内被写过时仍走主库，其他读请求不受影响。
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements MeterBinder, AutoCloseable {
+
+    // 只读路由中当前线程的读写一致性键，不在只读路由中时为null
+    private static final ThreadLocal<List<String>> READ_KEYS = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final int failureThreshold;
+
+    private final int healthCheckTimeoutSeconds;
+
+    private final long maxReplicaLagSeconds;
+
+    private final String replicaLagQuery;
+
+    // 窗口内写入过的键，条目在窗口结束时过期
+    private final Cache<String, Boolean> recentWrites;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder primaryRouted = new LongAdder();
+
+    private final ScheduledExecutorService healthChecker;
+
+    /**
+     * @param readAfterWriteWindowMs  键被写入后该时间内带有该键的读请求走主库，不大于0时不记录
+     * @param readAfterWriteMaxKeys   同时记录的键数上限
+     * @param maxReplicaLagSeconds    复制延迟上限（秒），不大于0时不检查延迟
+     * @param replicaLagQuery         查询复制延迟的语句，返回 Seconds_Behind_Source / Seconds_Behind_Master 列，
+     *                                或第一列为延迟秒数（如心跳表查询）；无结果或为NULL表示复制已停止
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, List<Replica> replicas, int failureThreshold,
+                                      long healthCheckIntervalMs, int healthCheckTimeoutSeconds,
+                                      long readAfterWriteWindowMs, long readAfterWriteMaxKeys,
+                                      long maxReplicaLagSeconds, String replicaLagQuery) {
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.failureThreshold = failureThreshold;
+        this.healthCheckTimeoutSeconds = healthCheckTimeoutSeconds;
+        this.maxReplicaLagSeconds = maxReplicaLagSeconds;
+        this.replicaLagQuery = replicaLagQuery;
+        this.recentWrites = readAfterWriteWindowMs > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(readAfterWriteMaxKeys)
+                        .expireAfterWrite(readAfterWriteWindowMs, TimeUnit.MILLISECONDS)
+                        .build()
+                : null;
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!this.replicas.isEmpty()) {
+            healthChecker.scheduleWithFixedDelay(this::checkHealth,
+                    healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 进入只读路由，嵌套调用时合并外层的键，返回之前的状态供 {@link #restoreReadOnly(List)} 恢复
+     *
+     * @param keys 本次读取涉及的读写一致性键
+     */
+    public static List<String> enterReadOnly(List<String> keys) {
+        List<String> previous = READ_KEYS.get();
+        List<String> current = new ArrayList<>(keys);
+        if (previous != null) {
+            current.addAll(previous);
+        }
+        READ_KEYS.set(current);
+        return previous;
+    }
+
+    public static void restoreReadOnly(List<String> previous) {
+        if (previous != null) {
+            READ_KEYS.set(previous);
+        } else {
+            READ_KEYS.remove();
+        }
+    }
+
+    /**
+     * 记录一次写入，之后 readAfterWriteWindow 内带有这些键的读请求走主库（忽略null）
+     */
+    public void markWrite(Collection<String> keys) {
+        if (recentWrites == null) {
+            return;
+        }
+        for (String key : keys) {
+            if (key != null) {
+                recentWrites.put(key, Boolean.TRUE);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = selectReplica();
+        if (replica != null) {
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.onSuccess();
+                return connection;
+            } catch (SQLException e) {
+                log.warn("从库获取连接失败，回退到主库，从库: {}，错误: {}", replica.name, e.getMessage());
+                recordFailure(replica);
+            }
+        }
+        primaryRouted.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Replica replica = selectReplica();
+        if (replica != null) {
+            try {
+                Connection connection = replica.dataSource.getConnection(username, password);
+                replica.onSuccess();
+                return connection;
+            } catch (SQLException e) {
+                log.warn("从库获取连接失败，回退到主库，从库: {}，错误: {}", replica.name, e.getMessage());
+                recordFailure(replica);
+            }
+        }
+        primaryRouted.increment();
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * 当前健康的从库数量
+     */
+    public int getHealthyReplicaCount() {
+        int count = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("datasource.routing.connections", primaryRouted, LongAdder::sum)
+                .tag("target", "primary")
+                .description("按路由目标统计的获取连接次数")
+                .register(registry);
+        for (Replica replica : replicas) {
+            FunctionCounter.builder("datasource.routing.connections", replica.routed, LongAdder::sum)
+                    .tag("target", replica.name)
+                    .description("按路由目标统计的获取连接次数")
+                    .register(registry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.name)
+                    .description("从库是否在路由中，1-在线，0-已摘除")
+                    .register(registry);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .description("最近一次健康检查得到的复制延迟，-1表示未知或复制已停止")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("关闭从库连接池失败，从库: {}，错误: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Replica selectReplica() {
+        List<String> keys = READ_KEYS.get();
+        if (keys == null || replicas.isEmpty()) {
+            return null;
+        }
+        if (recentWrites != null) {
+            for (String key : keys) {
+                if (recentWrites.getIfPresent(key) != null) {
+                    return null;
+                }
+            }
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                replica.routed.increment();
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void recordFailure(Replica replica) {
+        int failures = replica.consecutiveFailures.incrementAndGet();
+        if (failures >= failureThreshold && replica.healthy) {
+            replica.healthy = false;
+            log.error("从库连续失败 {} 次，已从路由中摘除，从库: {}", failures, replica.name);
+        }
+    }
+
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean valid;
+            boolean lagging = false;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                valid = connection.isValid(healthCheckTimeoutSeconds);
+                lagging = valid && isLagging(replica, connection);
+            } catch (SQLException e) {
+                valid = false;
+            } catch (RuntimeException e) {
+                log.warn("从库健康检查异常，从库: {}，错误: {}", replica.name, e.getMessage());
+                valid = false;
+            }
+            replica.lagging = lagging;
+            if (lagging) {
+                // 连接可用但数据过旧，不等失败次数累计，立即摘除
+                if (replica.healthy) {
+                    replica.healthy = false;
+                    log.error("从库复制延迟超过 {} 秒，已从路由中摘除，从库: {}，延迟: {}",
+                            maxReplicaLagSeconds, replica.name, replica.lagSeconds);
+                }
+            } else if (valid) {
+                replica.onSuccess();
+            } else {
+                recordFailure(replica);
+            }
+        }
+    }
+
+    /**
+     * 查询复制延迟，超过上限或复制已停止时返回true；查询失败按健康检查失败处理
+     */
+    private boolean isLagging(Replica replica, Connection connection) throws SQLException {
+        if (maxReplicaLagSeconds <= 0) {
+            return false;
+        }
+        Long lag;
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(healthCheckTimeoutSeconds);
+            try (ResultSet resultSet = statement.executeQuery(replicaLagQuery)) {
+                lag = resultSet.next() ? lagSeconds(resultSet) : null;
+            }
+        }
+        replica.lagSeconds = lag != null ? lag : -1;
+        return lag == null || lag > maxReplicaLagSeconds;
+    }
+
+    private static Long lagSeconds(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int column = 1;
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String label = metaData.getColumnLabel(i);
+            if ("Seconds_Behind_Source".equalsIgnoreCase(label) || "Seconds_Behind_Master".equalsIgnoreCase(label)) {
+                column = i;
+                break;
+            }
+        }
+        long lag = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : lag;
+    }
+
+    /**
+     * 从库
+     */
+    public static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private final LongAdder routed = new LongAdder();
+
+        private volatile boolean healthy = true;
+
+        // 复制延迟超限，恢复前不因连接成功而重新加入路由
+        private volatile boolean lagging;
+
+        private volatile long lagSeconds = -1;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void onSuccess() {
+            consecutiveFailures.set(0);
+            if (!healthy && !lagging) {
+                healthy = true;
+                log.info("从库恢复，重新加入路由，从库: {}", name);
+            }
+        }
+    }
+}
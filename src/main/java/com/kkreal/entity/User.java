@@ -1,9 +1,11 @@
 package com.kkreal.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.baomidou.mybatisplus.annotation.TableField;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import java.time.LocalDateTime;
 
@@ -15,6 +17,7 @@ import java.time.LocalDateTime;
 public class User {
 
     @Schema(description = "用户ID", example = "1")
+    // 数据库自增；开启异步写入时由 UserIdGenerator 按号段预先分配
     @TableId(value = "id", type = IdType.AUTO)
     private Long id;
 
@@ -46,6 +49,17 @@ public class User {
     @TableField("updated_at")
     private LocalDateTime updatedAt;
 
+    // 乐观锁版本号，每次更新由数据库加1；更新请求中携带时作为期望版本
+    @Schema(description = "版本号，更新时传入则按该版本做乐观锁校验", example = "0")
+    @TableField(value = "version", insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private Integer version;
+
+    // 密码哈希（BCrypt），只由认证接口写入；不参与JSON序列化，默认查询不返回
+    @JsonIgnore
+    @Schema(hidden = true)
+    @TableField(value = "password", select = false)
+    private String password;
+
     // Constructors
     public User() {
     }
@@ -120,4 +134,20 @@ public class User {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
 }
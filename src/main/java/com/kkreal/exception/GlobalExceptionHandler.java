@@ -5,7 +5,9 @@ import com.kkreal.common.ResultCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -25,6 +27,19 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    /**
+     * 处理服务过载异常（主动拒绝属于预期行为，不打印堆栈）
+     * <p>
+     * 与 ConcurrencyLimitInterceptor 一致，以结果码作为HTTP状态（429/503），响应体仍为Result
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Result<?>> handleServiceOverloadedException(ServiceOverloadedException e) {
+        logger.warn("服务过载，请求被拒绝：{}", e.getMessage());
+        return ResponseEntity.status(e.getCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Result.error(e.getCode(), e.getMessage()));
+    }
+
     /**
      * 处理自定义业务异常
      */
@@ -0,0 +1,18 @@
+package com.kkreal.exception;
+
+import com.kkreal.common.ResultCode;
+
+/**
+ * 服务过载异常（线程池队列已满、等待超时等主动拒绝的请求）
+ * <p>
+ * 属于预期内的负载保护，由全局异常处理器以WARN级别记录且不打印堆栈，
+ * 并以结果码（429/503）作为HTTP状态返回
+ */
+public class ServiceOverloadedException extends BusinessException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ServiceOverloadedException(ResultCode resultCode) {
+        super(resultCode);
+    }
+}
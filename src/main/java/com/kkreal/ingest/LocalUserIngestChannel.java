@@ -0,0 +1,235 @@
+package com.kkreal.ingest;
+
+import com.kkreal.common.ResultCode;
+import com.kkreal.config.UserIngestProperties;
+import com.kkreal.entity.User;
+import com.kkreal.exception.BusinessException;
+import com.kkreal.exception.ServiceOverloadedException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 进程内的用户创建队列，代替RocketMQ用于本地开发和压测
+ * <p>
+ * 有界队列 + 固定数量的消费线程，每个线程凑满一批或等到 maxWaitMs 后交给处理函数。
+ * 失败的消息按指数退避重新入队，超过最大重试次数后进入内存中的死信队列。
+ * 消息不持久化，进程退出时未写入的消息会丢失。
+ */
+@Slf4j
+public class LocalUserIngestChannel implements UserIngestChannel {
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final BlockingQueue<Delivery> queue;
+
+    private final int batchSize;
+
+    private final long maxWaitNanos;
+
+    private final int maxRetries;
+
+    private final long retryBackoffMs;
+
+    private final int consumerThreads;
+
+    private final long shutdownTimeoutMs;
+
+    private final ScheduledExecutorService retryScheduler;
+
+    private final Deque<User> deadLetters;
+
+    private final int deadLetterCapacity;
+
+    private final AtomicLong deadLetterCount = new AtomicLong();
+
+    // 已安排重试、尚未重新入队的消息数
+    private final AtomicLong scheduledRetries = new AtomicLong();
+
+    private final List<Thread> consumers = new ArrayList<>();
+
+    private volatile boolean running = true;
+
+    public LocalUserIngestChannel(UserIngestProperties properties, long shutdownTimeoutMs) {
+        this.queue = new ArrayBlockingQueue<>(properties.getLocal().getQueueCapacity());
+        this.batchSize = properties.getBatchSize();
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMs());
+        this.maxRetries = properties.getMaxRetries();
+        this.retryBackoffMs = properties.getRetryBackoffMs();
+        this.consumerThreads = properties.getConsumerThreads();
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.deadLetterCapacity = properties.getLocal().getDeadLetterCapacity();
+        this.deadLetters = new ArrayDeque<>();
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-ingest-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void publish(User user) {
+        if (!running) {
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE);
+        }
+        if (!queue.offer(new Delivery(user, 0))) {
+            log.warn("用户创建队列已满，拒绝请求，用户名: {}", user.getUsername());
+            throw new ServiceOverloadedException(ResultCode.TOO_MANY_REQUESTS);
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Function<List<User>, List<User>> handler) {
+        for (int i = 0; i < consumerThreads; i++) {
+            Thread consumer = new Thread(() -> consume(handler), "user-ingest-consumer-" + (i + 1));
+            consumer.setDaemon(true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+    }
+
+    @Override
+    public long backlog() {
+        return queue.size() + scheduledRetries.get();
+    }
+
+    @Override
+    public long deadLetterCount() {
+        return deadLetterCount.get();
+    }
+
+    /**
+     * 最近进入死信队列的消息（最多 deadLetterCapacity 条）
+     */
+    public synchronized List<User> deadLetters() {
+        return new ArrayList<>(deadLetters);
+    }
+
+    /**
+     * 停止接收新消息，等待消费线程写完队列中已有的消息
+     */
+    @Override
+    public void close() {
+        running = false;
+        retryScheduler.shutdownNow();
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        long lost = backlog();
+        if (lost > 0) {
+            log.warn("用户创建队列关闭，{} 条消息未写入", lost);
+        }
+    }
+
+    private void consume(Function<List<User>, List<User>> handler) {
+        List<Delivery> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Delivery first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Delivery next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(handler, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(Function<List<User>, List<User>> handler, List<Delivery> batch) {
+        List<User> users = new ArrayList<>(batch.size());
+        batch.forEach(delivery -> users.add(delivery.user()));
+        List<User> failed;
+        try {
+            failed = handler.apply(users);
+        } catch (Exception e) {
+            log.error("用户批量写入异常，本批 {} 条将重试，错误: {}", users.size(), e.getMessage(), e);
+            failed = users;
+        }
+        if (failed.isEmpty()) {
+            return;
+        }
+        Set<User> failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        failedSet.addAll(failed);
+        for (Delivery delivery : batch) {
+            if (failedSet.contains(delivery.user())) {
+                retry(delivery);
+            }
+        }
+    }
+
+    private void retry(Delivery delivery) {
+        int attempts = delivery.attempts() + 1;
+        if (attempts > maxRetries || !running) {
+            deadLetter(delivery.user(), attempts);
+            return;
+        }
+        scheduledRetries.incrementAndGet();
+        requeueLater(new Delivery(delivery.user(), attempts), retryBackoffMs << (attempts - 1));
+    }
+
+    private void requeueLater(Delivery delivery, long delayMs) {
+        try {
+            retryScheduler.schedule(() -> {
+                // 队列满时稍后再试，不占用新请求的容量判断
+                if (queue.offer(delivery)) {
+                    scheduledRetries.decrementAndGet();
+                } else {
+                    requeueLater(delivery, retryBackoffMs);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // 已关闭
+            scheduledRetries.decrementAndGet();
+            deadLetter(delivery.user(), delivery.attempts());
+        }
+    }
+
+    private synchronized void deadLetter(User user, int attempts) {
+        deadLetterCount.incrementAndGet();
+        if (deadLetters.size() >= deadLetterCapacity) {
+            deadLetters.pollFirst();
+        }
+        deadLetters.addLast(user);
+        log.error("用户写入失败 {} 次，已转入死信队列，ID: {}，用户名: {}", attempts, user.getId(), user.getUsername());
+    }
+
+    private record Delivery(User user, int attempts) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.kkreal.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kkreal.common.ResultCode;
+import com.kkreal.config.UserIngestProperties;
+import com.kkreal.entity.User;
+import com.kkreal.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageExt;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 基于RocketMQ的用户创建队列
+ * <p>
+ * 以用户ID作为消息Key同步发送；消费者按 batchSize 批量消费，写入失败的消息逐条退回Broker按延迟级别重投，
+ * 超过 maxRetries 次后由Broker转入死信队列 %DLQ%{consumerGroup}。
+ * 退回失败时整批重新消费，已写入的记录由处理函数按主键去重。
+ */
+@Slf4j
+public class RocketMqUserIngestChannel implements UserIngestChannel {
+
+    private final UserIngestProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    private final DefaultMQProducer producer;
+
+    private DefaultMQPushConsumer consumer;
+
+    // 本进程观察到的、已达到最大重试次数仍失败的消息数（之后由Broker转入死信队列）
+    private final AtomicLong deadLetterCount = new AtomicLong();
+
+    public RocketMqUserIngestChannel(UserIngestProperties properties, ObjectMapper objectMapper) throws MQClientException {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        UserIngestProperties.RocketMq config = properties.getRocketmq();
+        this.producer = new DefaultMQProducer(config.getProducerGroup());
+        producer.setNamesrvAddr(config.getNameServer());
+        producer.setSendMsgTimeout(config.getSendTimeoutMs());
+        producer.start();
+        log.info("用户创建消息生产者已启动，NameServer: {}，Topic: {}", config.getNameServer(), config.getTopic());
+    }
+
+    @Override
+    public void publish(User user) {
+        try {
+            Message message = new Message(properties.getRocketmq().getTopic(), objectMapper.writeValueAsBytes(user));
+            message.setKeys(String.valueOf(user.getId()));
+            SendResult result = producer.send(message);
+            if (result.getSendStatus() != SendStatus.SEND_OK) {
+                log.warn("用户创建消息发送状态异常，ID: {}，状态: {}", user.getId(), result.getSendStatus());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            log.error("用户创建消息发送失败，ID: {}，错误: {}", user.getId(), e.getMessage());
+            throw new BusinessException(ResultCode.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Function<List<User>, List<User>> handler) {
+        UserIngestProperties.RocketMq config = properties.getRocketmq();
+        try {
+            consumer = new DefaultMQPushConsumer(config.getConsumerGroup());
+            consumer.setNamesrvAddr(config.getNameServer());
+            consumer.subscribe(config.getTopic(), "*");
+            consumer.setConsumeMessageBatchMaxSize(properties.getBatchSize());
+            consumer.setPullBatchSize(properties.getBatchSize());
+            consumer.setMaxReconsumeTimes(properties.getMaxRetries());
+            consumer.setConsumeThreadMin(properties.getConsumerThreads());
+            consumer.setConsumeThreadMax(properties.getConsumerThreads());
+            consumer.registerMessageListener((MessageListenerConcurrently) (messages, context) ->
+                    consume(handler, messages, context.getMessageQueue().getBrokerName()));
+            consumer.start();
+            log.info("用户创建消息消费者已启动，消费组: {}", config.getConsumerGroup());
+        } catch (MQClientException e) {
+            throw new IllegalStateException("用户创建消息消费者启动失败: " + e.getMessage(), e);
+        }
+    }
+
+    private ConsumeConcurrentlyStatus consume(Function<List<User>, List<User>> handler, List<MessageExt> messages,
+                                              String brokerName) {
+        List<User> users = new ArrayList<>(messages.size());
+        Map<User, MessageExt> sources = new IdentityHashMap<>();
+        for (MessageExt message : messages) {
+            try {
+                User user = objectMapper.readValue(message.getBody(), User.class);
+                users.add(user);
+                sources.put(user, message);
+            } catch (Exception e) {
+                // 无法解析的消息重试也不会成功，直接确认
+                log.error("用户创建消息无法解析，已丢弃，MsgId: {}，错误: {}", message.getMsgId(), e.getMessage());
+            }
+        }
+        List<User> failed;
+        try {
+            failed = handler.apply(users);
+        } catch (Exception e) {
+            log.error("用户批量写入异常，本批 {} 条将重试，错误: {}", users.size(), e.getMessage(), e);
+            failed = users;
+        }
+        // 只把失败的消息退回Broker重投，同批已写入的消息正常确认
+        for (User user : failed) {
+            MessageExt message = sources.get(user);
+            if (message.getReconsumeTimes() >= properties.getMaxRetries()) {
+                deadLetterCount.incrementAndGet();
+                log.error("用户创建消息重试 {} 次仍失败，转入死信队列，Key: {}", message.getReconsumeTimes(), message.getKeys());
+            }
+            try {
+                // 延迟级别0表示由Broker按重试次数决定
+                consumer.sendMessageBack(message, 0, brokerName);
+            } catch (Exception e) {
+                log.warn("用户创建消息退回失败，整批稍后重新消费，Key: {}，错误: {}", message.getKeys(), e.getMessage());
+                return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+            }
+        }
+        return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+    }
+
+    @Override
+    public long backlog() {
+        return -1;
+    }
+
+    @Override
+    public long deadLetterCount() {
+        return deadLetterCount.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (consumer != null) {
+            consumer.shutdown();
+        }
+        producer.shutdown();
+    }
+}
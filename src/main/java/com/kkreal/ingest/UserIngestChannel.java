@@ -0,0 +1,38 @@
+package com.kkreal.ingest;
+
+import com.kkreal.entity.User;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 用户创建消息队列
+ * <p>
+ * 消息至少投递一次：处理函数需要幂等。处理函数返回本批中写入失败的用户，
+ * 队列按退避间隔重新投递，超过最大重试次数后转入死信队列。
+ */
+public interface UserIngestChannel extends AutoCloseable {
+
+    /**
+     * 发送一条创建消息，队列不可用或已满时抛出 BusinessException
+     */
+    void publish(User user);
+
+    /**
+     * 开始消费，handler 每次收到一批消息
+     */
+    void subscribe(Function<List<User>, List<User>> handler);
+
+    /**
+     * 等待消费的消息数，无法获取时返回-1
+     */
+    long backlog();
+
+    /**
+     * 已转入死信队列的消息数
+     */
+    long deadLetterCount();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,145 @@
+package com.kkreal.ingest;
+
+import com.kkreal.common.BatchItemResult;
+import com.kkreal.entity.User;
+import com.kkreal.mapper.UserMapper;
+import com.kkreal.service.UserBatchService;
+import com.kkreal.service.UserChangeListener;
+import com.kkreal.service.UserIdGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户异步写入服务（user.ingest.enabled=true 时启用）
+ * <p>
+ * 创建请求在请求线程上只分配ID并发送到 {@link UserIngestChannel}，由消费者按批写库：
+ * 整批先走 {@link UserBatchService} 的批量插入，失败的块再逐条插入以隔离出问题记录，
+ * 逐条仍失败的交给队列重试。重复投递的消息按主键识别为已写入。
+ * <p>
+ * ID由 {@link UserIdGenerator} 预分配，写入前客户端即可拿到ID。开启期间同步创建路径也使用同一号段，
+ * 避免数据库自增ID落入已预留但尚未写入的号段。
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "user.ingest.enabled", havingValue = "true")
+public class UserIngestService implements MeterBinder {
+
+    @Autowired
+    private UserIngestChannel userIngestChannel;
+
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserIdGenerator userIdGenerator;
+
+    @Autowired
+    private List<UserChangeListener> userChangeListeners;
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder inserted = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * 应用启动完成后开始消费
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startConsuming() {
+        userIngestChannel.subscribe(this::insert);
+    }
+
+    /**
+     * 受理创建请求：分配ID和创建时间后入队，返回的用户在写库完成前查询不到
+     */
+    public User submit(User user) {
+        user.setId(userIdGenerator.nextId());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        userIngestChannel.publish(user);
+        accepted.increment();
+        log.info("用户创建请求已入队，ID: {}，用户名: {}", user.getId(), user.getUsername());
+        return user;
+    }
+
+    /**
+     * 写入一批用户，返回写入失败、需要重试的用户
+     */
+    List<User> insert(List<User> batch) {
+        List<User> retry = new ArrayList<>();
+        for (BatchItemResult result : userBatchService.createUsers(batch)) {
+            if (!result.isSuccess()) {
+                User user = batch.get(result.getIndex());
+                if (!insertOne(user)) {
+                    retry.add(user);
+                }
+            }
+        }
+        inserted.add(batch.size() - retry.size());
+        failed.add(retry.size());
+        return retry;
+    }
+
+    private boolean insertOne(User user) {
+        try {
+            userMapper.insert(user);
+        } catch (DuplicateKeyException e) {
+            User existing = userMapper.selectById(user.getId());
+            if (existing == null || !Objects.equals(existing.getUsername(), user.getUsername())) {
+                log.warn("用户写入失败，数据已存在，ID: {}，用户名: {}，错误: {}",
+                        user.getId(), user.getUsername(), e.getMessage());
+                return false;
+            }
+            log.info("用户已写入（重复投递），ID: {}", user.getId());
+        } catch (Exception e) {
+            log.warn("用户写入失败，ID: {}，用户名: {}，错误: {}", user.getId(), user.getUsername(), e.getMessage());
+            return false;
+        }
+        userChangeListeners.forEach(listener -> listener.onUserSaved(user));
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("user.ingest.messages", accepted, LongAdder::sum)
+                .tag("result", "accepted")
+                .description("已受理入队的创建请求数")
+                .register(registry);
+        FunctionCounter.builder("user.ingest.messages", inserted, LongAdder::sum)
+                .tag("result", "inserted")
+                .description("已写入数据库的用户数")
+                .register(registry);
+        FunctionCounter.builder("user.ingest.messages", failed, LongAdder::sum)
+                .tag("result", "failed")
+                .description("写入失败、交给队列重试的次数")
+                .register(registry);
+        FunctionCounter.builder("user.ingest.messages", userIngestChannel, UserIngestChannel::deadLetterCount)
+                .tag("result", "dead_letter")
+                .description("超过最大重试次数、转入死信队列的消息数")
+                .register(registry);
+        Gauge.builder("user.ingest.backlog", userIngestChannel, UserIngestChannel::backlog)
+                .description("等待写入的消息数，-1表示由消息队列统计")
+                .register(registry);
+    }
+}
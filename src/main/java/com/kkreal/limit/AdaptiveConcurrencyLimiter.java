@@ -0,0 +1,123 @@
+package com.kkreal.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于延迟梯度的自适应并发限制器
+ * <p>
+ * 以长期平均延迟为基线、最近一个采样窗口的平均延迟为当前值，按两者之比（梯度）调整并发上限：
+ * 延迟上升时上限按比例收缩，延迟平稳时每个窗口增加约 sqrt(limit) 的排队余量继续探测。
+ * 实际并发远低于上限时不提升上限，避免空闲期把上限推高。
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int LONG_WINDOW = 100;
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int sampleWindow;
+
+    private final double smoothing;
+
+    private final double rttTolerance;
+
+    private volatile double limit;
+
+    // 以下字段只在持有锁时访问
+    private double longRtt;
+
+    private long windowRttSum;
+
+    private int windowCount;
+
+    private int windowMaxInflight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      int sampleWindow, double smoothing, double rttTolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.sampleWindow = sampleWindow;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+    }
+
+    /**
+     * 尝试获取一个并发许可
+     *
+     * @param share 该请求可使用的上限比例（0, 1]
+     * @return 获取成功时的在途请求数，被拒绝时返回-1
+     */
+    public int tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                return -1;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 释放许可并提交本次请求的延迟样本
+     *
+     * @param rttNanos         请求耗时
+     * @param inflightAtStart  获取许可时的在途请求数
+     */
+    public void release(long rttNanos, int inflightAtStart) {
+        inflight.decrementAndGet();
+        onSample(rttNanos, inflightAtStart);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtStart) {
+        windowRttSum += rttNanos;
+        windowCount++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflightAtStart);
+        if (windowCount < sampleWindow) {
+            return;
+        }
+
+        double shortRtt = (double) windowRttSum / windowCount;
+        int maxInflight = windowMaxInflight;
+        windowRttSum = 0;
+        windowCount = 0;
+        windowMaxInflight = 0;
+
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+            return;
+        }
+        longRtt += (shortRtt - longRtt) / LONG_WINDOW;
+        // 延迟长时间下降后基线跟随回落，避免基线偏高导致上限一直增长
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        double current = limit;
+        // 负载不足一半时样本不能说明上限是否合适
+        if (maxInflight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double newLimit = current * gradient + Math.sqrt(current);
+        newLimit = current * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,148 @@
+package com.kkreal.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kkreal.common.Result;
+import com.kkreal.common.ResultCode;
+import com.kkreal.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发限制拦截器，在认证之前执行
+ * <p>
+ * 超出自适应并发上限的请求立即返回429，不进入业务处理。
+ * 按接口优先级分配可用上限：高优先级可使用全部，普通、低优先级只能使用一部分，过载时先拒绝低优先级请求。
+ */
+@Component
+@Slf4j
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor, MeterBinder {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+
+    @Autowired
+    private ConcurrencyLimitProperties properties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @PostConstruct
+    public void init() {
+        this.limiter = new AdaptiveConcurrencyLimiter(properties.getInitialLimit(), properties.getMinLimit(),
+                properties.getMaxLimit(), properties.getSampleWindow(), properties.getSmoothing(),
+                properties.getRttTolerance());
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, new LongAdder());
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // 异步请求再次分派时沿用首次分派获取的许可
+        if (!properties.isEnabled() || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Priority priority = priorityOf(request.getRequestURI());
+        int inflight = limiter.tryAcquire(shareOf(priority));
+        if (inflight < 0) {
+            rejected.get(priority).increment();
+            // 过载时每个被拒绝的请求都会走到这里，逐条记录只用DEBUG，拒绝数量看 concurrency.rejected 指标
+            log.debug("请求被限流，接口: {}，优先级: {}，当前并发上限: {}", request.getRequestURI(), priority, limiter.getLimit());
+            reject(response);
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, new Permit(System.nanoTime(), inflight));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // 异步请求只在最后一次分派完成后调用
+        Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit instanceof Permit acquired) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            limiter.release(System.nanoTime() - acquired.startNanos(), acquired.inflight());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("concurrency.limit", this, interceptor -> interceptor.limiter.getLimit())
+                .description("当前自适应并发上限")
+                .register(registry);
+        Gauge.builder("concurrency.inflight", this, interceptor -> interceptor.limiter.getInflight())
+                .description("当前在途请求数")
+                .register(registry);
+        for (Map.Entry<Priority, LongAdder> entry : rejected.entrySet()) {
+            FunctionCounter.builder("concurrency.rejected", entry.getValue(), LongAdder::sum)
+                    .tag("priority", entry.getKey().name().toLowerCase())
+                    .description("超出并发上限被拒绝的请求数")
+                    .register(registry);
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws Exception {
+        response.setStatus(ResultCode.TOO_MANY_REQUESTS.getCode());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(objectMapper.writeValueAsString(Result.error(ResultCode.TOO_MANY_REQUESTS)));
+    }
+
+    private Priority priorityOf(String uri) {
+        if (matches(properties.getHighPriorityPaths(), uri)) {
+            return Priority.HIGH;
+        }
+        if (matches(properties.getLowPriorityPaths(), uri)) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    private boolean matches(List<String> patterns, String uri) {
+        for (String pattern : patterns) {
+            if (pathMatcher.match(pattern, uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double shareOf(Priority priority) {
+        return switch (priority) {
+            case HIGH -> 1.0;
+            case NORMAL -> properties.getNormalPriorityShare();
+            case LOW -> properties.getLowPriorityShare();
+        };
+    }
+
+    private enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    private record Permit(long startNanos, int inflight) {
+    }
+}
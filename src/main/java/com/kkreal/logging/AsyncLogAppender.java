@@ -0,0 +1,90 @@
+package com.kkreal.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步日志Appender，在logback {@link AsyncAppender} 的基础上统计丢弃的事件数
+ * <p>
+ * 入队、后台写出、停止时的刷新均由 AsyncAppender 完成：队列剩余容量低于 discardingThreshold 时
+ * 丢弃INFO及以下的事件，WARN/ERROR在 neverBlock=false 时阻塞等待入队，不会丢失。
+ * 本类只在丢弃时按级别计数，并按名称登记已启动的实例供 {@link AsyncLogMetrics} 采集。
+ * <pre>
+ * &lt;appender name="ASYNC_FILE" class="com.kkreal.logging.AsyncLogAppender"&gt;
+ *     &lt;queueSize&gt;8192&lt;/queueSize&gt;
+ *     &lt;discardingThreshold&gt;1638&lt;/discardingThreshold&gt;
+ *     &lt;neverBlock&gt;false&lt;/neverBlock&gt;
+ *     &lt;appender-ref ref="FILE"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ */
+public class AsyncLogAppender extends AsyncAppender {
+
+    // 已启动的实例，按名称注册，供指标采集使用
+    private static final Map<String, AsyncLogAppender> INSTANCES = new ConcurrentHashMap<>();
+
+    private final Map<Level, LongAdder> dropped = new ConcurrentHashMap<>();
+
+    /**
+     * 所有已启动的异步Appender
+     */
+    public static Collection<AsyncLogAppender> instances() {
+        return Collections.unmodifiableCollection(INSTANCES.values());
+    }
+
+    /**
+     * 按名称查找已启动的异步Appender
+     */
+    public static AsyncLogAppender instance(String name) {
+        return INSTANCES.get(name);
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        super.start();
+        if (isStarted()) {
+            INSTANCES.put(getName(), this);
+        }
+    }
+
+    @Override
+    public void stop() {
+        INSTANCES.remove(getName(), this);
+        super.stop();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // 与 AsyncAppenderBase 的丢弃条件一致，丢弃前计数
+        if (getRemainingCapacity() < getDiscardingThreshold() && isDiscardable(event)) {
+            dropped.computeIfAbsent(event.getLevel(), level -> new LongAdder()).increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    /**
+     * 当前队列中等待写出的事件数
+     */
+    public int getQueueDepth() {
+        return getNumberOfElementsInQueue();
+    }
+
+    /**
+     * 指定级别被丢弃的事件数
+     */
+    public long getDroppedCount(Level level) {
+        LongAdder counter = dropped.get(level);
+        return counter == null ? 0 : counter.sum();
+    }
+}
@@ -0,0 +1,45 @@
+package com.kkreal.logging;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 异步日志指标：队列深度、按级别统计的丢弃事件数
+ * <p>
+ * 通过 /actuator/metrics/logging.async.queue.depth 和 /actuator/metrics/logging.async.dropped 查看
+ */
+@Component
+public class AsyncLogMetrics implements MeterBinder {
+
+    // AsyncAppender 只丢弃INFO及以下的事件
+    private static final Level[] DISCARDABLE_LEVELS = {Level.TRACE, Level.DEBUG, Level.INFO};
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (AsyncLogAppender appender : AsyncLogAppender.instances()) {
+            String name = appender.getName();
+            // 日志系统重新加载后按名称取最新实例
+            Gauge.builder("logging.async.queue.depth", () -> {
+                        AsyncLogAppender current = AsyncLogAppender.instance(name);
+                        return current == null ? 0 : current.getQueueDepth();
+                    })
+                    .tag("appender", name)
+                    .description("异步日志队列中等待写出的事件数")
+                    .register(registry);
+            for (Level level : DISCARDABLE_LEVELS) {
+                FunctionCounter.builder("logging.async.dropped", name, key -> {
+                            AsyncLogAppender current = AsyncLogAppender.instance(key);
+                            return current == null ? 0 : current.getDroppedCount(level);
+                        })
+                        .tag("appender", name)
+                        .tag("level", level.toString())
+                        .description("队列剩余容量低于丢弃阈值时被丢弃的日志事件数")
+                        .register(registry);
+            }
+        }
+    }
+}
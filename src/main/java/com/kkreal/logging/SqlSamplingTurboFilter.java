@@ -0,0 +1,72 @@
+package com.kkreal.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SQL日志采样过滤器
+ * <p>
+ * MyBatis一条语句会输出 Preparing / Parameters / Total 多行DEBUG日志，
+ * 在 Preparing 行按 1/sampleRate 决定是否采样，同一线程上后续几行沿用该结果，保证一条语句的日志完整。
+ * 未采样的事件在创建之前就被拒绝，不进入异步队列。
+ */
+public class SqlSamplingTurboFilter extends TurboFilter {
+
+    private static final String STATEMENT_START = "==>  Preparing:";
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private final ThreadLocal<Boolean> sampled = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private String[] loggerPrefixes = {"com.kkreal.mapper"};
+
+    private int sampleRate = 100;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // isDebugEnabled() 等级别判断（format为null）以及非DEBUG事件不处理
+        if (format == null || level != Level.DEBUG || !matches(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        if (format.startsWith(STATEMENT_START)) {
+            sampled.set(counter.getAndIncrement() % sampleRate == 0);
+        }
+        return sampled.get() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean matches(String loggerName) {
+        for (String prefix : loggerPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 每 sampleRate 条语句记录1条，1表示全部记录
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public String getLoggerPrefixes() {
+        return String.join(",", loggerPrefixes);
+    }
+
+    /**
+     * 需要采样的Logger名称前缀，逗号分隔
+     */
+    public void setLoggerPrefixes(String loggerPrefixes) {
+        this.loggerPrefixes = loggerPrefixes.trim().split("\\s*,\\s*");
+    }
+}
@@ -0,0 +1,105 @@
+package com.kkreal.logging;
+
+import com.kkreal.util.LogUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 追踪ID过滤器
+ * <p>
+ * 每个请求只确定一次traceId：优先取W3C traceparent 中的 trace-id，其次取 X-Trace-Id，都没有时生成。
+ * traceId 在整个请求期间保存在MDC中，并通过响应头 X-Trace-Id 返回给调用方。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private static final String TRACEPARENT_HEADER = "traceparent";
+
+    private static final String TRACE_ID_ATTRIBUTE = TraceIdFilter.class.getName() + ".traceId";
+
+    private static final int MAX_TRACE_ID_LENGTH = 64;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // 异步分派时沿用首次分派确定的traceId
+        String traceId = (String) request.getAttribute(TRACE_ID_ATTRIBUTE);
+        if (traceId == null) {
+            traceId = resolveTraceId(request);
+            request.setAttribute(TRACE_ID_ATTRIBUTE, traceId);
+            response.setHeader(TRACE_ID_HEADER, traceId);
+        }
+
+        LogUtil.setTraceId(traceId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            LogUtil.clearTraceId();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private String resolveTraceId(HttpServletRequest request) {
+        String traceId = fromTraceparent(request.getHeader(TRACEPARENT_HEADER));
+        if (traceId == null) {
+            String header = request.getHeader(TRACE_ID_HEADER);
+            if (isValid(header)) {
+                traceId = header;
+            }
+        }
+        return traceId != null ? traceId : LogUtil.generateTraceId();
+    }
+
+    /**
+     * 解析 traceparent: {version}-{trace-id}-{parent-id}-{flags}，trace-id 为32位十六进制且不能全为0
+     */
+    private static String fromTraceparent(String traceparent) {
+        if (traceparent == null || traceparent.length() < 55
+                || traceparent.charAt(2) != '-' || traceparent.charAt(35) != '-') {
+            return null;
+        }
+        String traceId = traceparent.substring(3, 35);
+        boolean allZero = true;
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return null;
+            }
+            if (c != '0') {
+                allZero = false;
+            }
+        }
+        return allZero ? null : traceId;
+    }
+
+    /**
+     * 外部传入的 X-Trace-Id 只接受字母、数字、'-'、'_'，防止日志注入
+     */
+    private static boolean isValid(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_TRACE_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!(Character.isLetterOrDigit(c) && c < 128) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
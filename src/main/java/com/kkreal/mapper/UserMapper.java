@@ -3,6 +3,12 @@ package com.kkreal.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.kkreal.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
@@ -14,6 +20,21 @@ public interface UserMapper extends BaseMapper<User> {
     // - selectList(Wrapper<T> queryWrapper)
     // - selectPage(Page<T> page, Wrapper<T> queryWrapper)
     // etc.
-    
-    // You can add custom methods here if needed
+
+    /**
+     * 流式遍历所有用户，逐行回调handler，不在内存中聚合结果
+     * <p>
+     * 需要JDBC URL开启 useCursorFetch=true，fetchSize才会以服务端游标生效；
+     * 该参数会对整个连接池开启服务端预编译（useServerPrepStmts），需配合 cachePrepStmts 使用
+     */
+    @Select("SELECT id, username, email, phone, age, status, created_at, updated_at, version FROM user ORDER BY id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    @ResultType(User.class)
+    void streamAll(ResultHandler<User> handler);
+
+    /**
+     * 查询密码哈希（实体上的 password 字段默认不查询）
+     */
+    @Select("SELECT password FROM user WHERE id = #{id}")
+    String selectPasswordById(@Param("id") Long id);
 }
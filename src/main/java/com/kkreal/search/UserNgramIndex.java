@@ -0,0 +1,320 @@
+package com.kkreal.search;
+
+import com.kkreal.entity.User;
+import com.kkreal.mapper.UserMapper;
+import com.kkreal.service.UserChangeListener;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 用户名、邮箱的三元组（trigram）倒排索引
+ * <p>
+ * 用于代替 LIKE '%x%' 全表扫描：先在内存中求出候选用户ID，再由数据库按主键校验。
+ * 启动后异步从数据库流式构建，之后通过 {@link UserChangeListener} 增量维护。
+ * 与MySQL默认排序规则一致，匹配不区分大小写。
+ * <p>
+ * 增量维护只能看到本实例的写入；其他实例、其他进程或直接写库产生的变更要等下一次定期重建
+ * （rebuild-interval-minutes）才能搜到，在此之前搜索结果会漏掉这些用户。因此默认关闭，
+ * 只在所有写入都经过本进程的单实例部署中开启。重建期间新旧索引同时存在，内存占用短暂翻倍。
+ */
+@Component
+@Slf4j
+public class UserNgramIndex implements UserChangeListener {
+
+    private static final int GRAM_SIZE = 3;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${user.search.ngram.enabled:false}")
+    private boolean enabled;
+
+    // 候选ID超过该数量时索引不再有区分度，交给数据库扫描
+    @Value("${user.search.ngram.max-candidates:1000}")
+    private int maxCandidates;
+
+    @Value("${user.search.ngram.rebuild-interval-minutes:10}")
+    private long rebuildIntervalMinutes;
+
+    // 当前使用的索引，首次构建完成前为null
+    private volatile Index current;
+
+    // 重建期间的新索引，写路径同时写入新旧两个索引
+    private volatile Index building;
+
+    private ScheduledExecutorService rebuilder;
+
+    /**
+     * 应用启动完成后异步构建，之后按固定间隔重建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-ngram-index-build");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * 从数据库重新构建索引，完成后替换当前索引；失败时保留旧索引（首次失败则继续使用LIKE查询）
+     */
+    public void rebuild() {
+        Index next = new Index();
+        synchronized (this) {
+            building = next;
+        }
+        try {
+            long startTime = System.currentTimeMillis();
+            userMapper.streamAll(context -> {
+                User user = context.getResultObject();
+                synchronized (this) {
+                    // 构建过程中写路径已经处理过的用户以写路径为准
+                    if (!next.entries.containsKey(user.getId()) && !next.deleted.contains(user.getId())) {
+                        next.put(user.getId(), lower(user.getUsername()), lower(user.getEmail()));
+                    }
+                }
+            });
+            synchronized (this) {
+                next.deleted.clear();
+                current = next;
+                building = null;
+            }
+            log.info("[PERFORMANCE] 用户trigram索引构建完成，用户数: {}，耗时 {} ms",
+                    next.entries.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            synchronized (this) {
+                building = null;
+            }
+            log.error("用户trigram索引构建失败，{}，错误: {}",
+                    current != null ? "继续使用旧索引" : "搜索将使用数据库LIKE查询", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 根据用户名、邮箱子串求候选用户ID
+     *
+     * @return 候选ID集合（可能为空集合）；索引不可用、关键词过短或候选过多时返回null，调用方应回退到LIKE查询
+     */
+    public Set<Long> candidates(String username, String email) {
+        Index index = current;
+        if (index == null) {
+            return null;
+        }
+        String usernameTerm = searchable(username);
+        String emailTerm = searchable(email);
+        if (usernameTerm == null && emailTerm == null) {
+            return null;
+        }
+
+        Set<Long> result = null;
+        if (usernameTerm != null) {
+            result = index.match(index.usernameGrams, usernameTerm, Entry::username);
+        }
+        if (emailTerm != null && (result == null || !result.isEmpty())) {
+            Set<Long> emailMatches = index.match(index.emailGrams, emailTerm, Entry::email);
+            if (result == null) {
+                result = emailMatches;
+            } else {
+                result.retainAll(emailMatches);
+            }
+        }
+        return result.size() > maxCandidates ? null : result;
+    }
+
+    /**
+     * 已索引的用户数量
+     */
+    public int size() {
+        Index index = current;
+        return index == null ? 0 : index.entries.size();
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    @Override
+    public void onUserSaved(User user) {
+        if (!enabled || user.getId() == null) {
+            return;
+        }
+        User values = user;
+        if ((user.getUsername() == null || user.getEmail() == null) && !isIndexed(user.getId())) {
+            // 部分更新且索引中还没有该用户（构建尚未扫描到，或本实例从未见过），从数据库补全未提交的字段，
+            // 否则会以null写入，之后的构建也会因为写路径已处理而跳过该用户
+            values = userMapper.selectById(user.getId());
+            if (values == null) {
+                return;
+            }
+        }
+        save(user.getId(), values);
+    }
+
+    @Override
+    public synchronized void onUserDeleted(User user) {
+        if (!enabled || user.getId() == null) {
+            return;
+        }
+        Index index = current;
+        if (index != null) {
+            index.remove(user.getId());
+        }
+        Index next = building;
+        if (next != null) {
+            next.remove(user.getId());
+            next.deleted.add(user.getId());
+        }
+    }
+
+    private synchronized void save(Long id, User user) {
+        for (Index index : new Index[]{current, building}) {
+            if (index == null) {
+                continue;
+            }
+            Entry old = index.entries.get(id);
+            // 部分更新时未提交的字段保持原值
+            String username = user.getUsername() != null ? lower(user.getUsername()) : (old != null ? old.username() : null);
+            String email = user.getEmail() != null ? lower(user.getEmail()) : (old != null ? old.email() : null);
+            index.remove(id);
+            index.put(id, username, email);
+        }
+    }
+
+    /**
+     * 当前使用和正在构建的索引中是否都已有该用户
+     */
+    private synchronized boolean isIndexed(Long id) {
+        Index index = current;
+        Index next = building;
+        return (index == null || index.entries.containsKey(id)) && (next == null || next.entries.containsKey(id));
+    }
+
+    private static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    private static String searchable(String term) {
+        if (term == null || term.length() < GRAM_SIZE) {
+            return null;
+        }
+        return lower(term);
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 一份完整的索引数据
+     */
+    private static final class Index {
+
+        private final Map<String, Set<Long>> usernameGrams = new ConcurrentHashMap<>();
+
+        private final Map<String, Set<Long>> emailGrams = new ConcurrentHashMap<>();
+
+        // 已索引的用户，ID -> 小写后的用户名和邮箱
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+        // 构建期间被删除的用户，避免构建线程把已删除的行加回索引
+        private final Set<Long> deleted = ConcurrentHashMap.newKeySet();
+
+        private Set<Long> match(Map<String, Set<Long>> index, String term, Function<Entry, String> field) {
+            List<Set<Long>> postings = new ArrayList<>();
+            for (String gram : grams(term)) {
+                Set<Long> ids = index.get(gram);
+                if (ids == null) {
+                    return new HashSet<>();
+                }
+                postings.add(ids);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+
+            // 从最短的倒排表开始求交集，再用原值确认子串确实存在
+            Set<Long> result = new HashSet<>();
+            for (Long id : postings.get(0)) {
+                Entry entry = entries.get(id);
+                if (entry == null) {
+                    continue;
+                }
+                String value = field.apply(entry);
+                if (value != null && value.contains(term)) {
+                    result.add(id);
+                }
+            }
+            return result;
+        }
+
+        private void put(Long id, String username, String email) {
+            entries.put(id, new Entry(username, email));
+            addGrams(usernameGrams, username, id);
+            addGrams(emailGrams, email, id);
+        }
+
+        private void remove(Long id) {
+            Entry old = entries.remove(id);
+            if (old != null) {
+                removeGrams(usernameGrams, old.username(), id);
+                removeGrams(emailGrams, old.email(), id);
+            }
+        }
+
+        private static void addGrams(Map<String, Set<Long>> index, String value, Long id) {
+            if (value == null) {
+                return;
+            }
+            for (String gram : grams(value)) {
+                index.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+
+        private static void removeGrams(Map<String, Set<Long>> index, String value, Long id) {
+            if (value == null) {
+                return;
+            }
+            for (String gram : grams(value)) {
+                index.computeIfPresent(gram, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    private record Entry(String username, String email) {
+    }
+}
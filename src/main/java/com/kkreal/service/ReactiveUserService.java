@@ -0,0 +1,268 @@
+package com.kkreal.service;
+
+import com.kkreal.common.CursorPage;
+import com.kkreal.entity.User;
+import com.kkreal.search.UserNgramIndex;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户服务（响应式版本）
+ * <p>
+ * 与 {@link UserService} 提供相同的增删改查、搜索、分页能力，通过R2DBC非阻塞访问同一张user表。
+ * 写操作成功后同样通知 {@link UserChangeListener}，两套接口共用的缓存、索引保持一致。
+ */
+@Service
+@Slf4j
+public class ReactiveUserService {
+
+    private static final String COLUMNS = "id, username, email, phone, age, status, created_at, updated_at, version";
+
+    @Autowired
+    private R2dbcProperties r2dbcProperties;
+
+    @Autowired
+    private UserNgramIndex userNgramIndex;
+
+    @Autowired
+    private List<UserChangeListener> userChangeListeners;
+
+    // 开启异步写入（user.ingest.enabled=true）时存在，否则使用数据库自增
+    @Autowired(required = false)
+    private UserIdGenerator userIdGenerator;
+
+    private ConnectionPool connectionPool;
+
+    private DatabaseClient databaseClient;
+
+    @PostConstruct
+    public void init() {
+        // 按 spring.r2dbc 配置创建连接池，不注册为bean（见 KkrealCodeApplication）
+        ConnectionFactoryBuilder builder = ConnectionFactoryBuilder.withUrl(r2dbcProperties.getUrl());
+        if (StringUtils.hasText(r2dbcProperties.getUsername())) {
+            builder.username(r2dbcProperties.getUsername());
+        }
+        if (StringUtils.hasText(r2dbcProperties.getPassword())) {
+            builder.password(r2dbcProperties.getPassword());
+        }
+        ConnectionFactory connectionFactory = builder.build();
+        R2dbcProperties.Pool pool = r2dbcProperties.getPool();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        connectionPool.dispose();
+    }
+
+    // Create - 创建用户
+    public Mono<User> createUser(User user) {
+        Mono<Long> id = userIdGenerator == null
+                ? insert(user, null)
+                // 与阻塞版本共用号段分配器，偶尔需要访问数据库预留号段，放到弹性线程池执行
+                : Mono.fromCallable(userIdGenerator::nextId)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .flatMap(assigned -> insert(user, assigned));
+        return id.flatMap(this::getUserById)
+                .doOnNext(created -> userChangeListeners.forEach(listener -> listener.onUserSaved(created)));
+    }
+
+    /**
+     * 插入用户，id为null时由数据库自增生成，返回用户ID
+     */
+    private Mono<Long> insert(User user, Long id) {
+        String sql = id != null
+                ? "INSERT INTO user (id, username, email, phone, age, status) VALUES (:id, :username, :email, :phone, :age, :status)"
+                : "INSERT INTO user (username, email, phone, age, status) VALUES (:username, :email, :phone, :age, :status)";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                .bind("username", user.getUsername())
+                .bind("email", user.getEmail())
+                .bind("status", user.getStatus() != null ? user.getStatus() : 1);
+        spec = user.getPhone() != null ? spec.bind("phone", user.getPhone()) : spec.bindNull("phone", String.class);
+        spec = user.getAge() != null ? spec.bind("age", user.getAge()) : spec.bindNull("age", Integer.class);
+        if (id != null) {
+            return spec.bind("id", id).then().thenReturn(id);
+        }
+        return spec.filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    // Read - 根据ID查询用户
+    public Mono<User> getUserById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM user WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserService::toUser)
+                .one();
+    }
+
+    // Read - 根据用户名查询
+    public Mono<User> getUserByUsername(String username) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM user WHERE username = :username")
+                .bind("username", username)
+                .map(ReactiveUserService::toUser)
+                .one();
+    }
+
+    // Read - 流式查询所有用户，按下游请求量从数据库拉取
+    public Flux<User> streamAllUsers() {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM user ORDER BY id")
+                .map(ReactiveUserService::toUser)
+                .all();
+    }
+
+    // Read - 游标分页查询（按ID seek，不使用OFFSET，不默认统计总数）
+    public Mono<CursorPage<User>> getUsersByCursor(Long afterId, int size, boolean withTotal) {
+        // 多取一条用于判断是否还有下一页
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("SELECT " + COLUMNS + " FROM user"
+                        + (afterId != null ? " WHERE id > :afterId" : "") + " ORDER BY id LIMIT :limit")
+                .bind("limit", size + 1);
+        if (afterId != null) {
+            spec = spec.bind("afterId", afterId);
+        }
+        Mono<List<User>> records = spec.map(ReactiveUserService::toUser).all().collectList();
+        Mono<Long> total = withTotal
+                ? databaseClient.sql("SELECT COUNT(*) FROM user").map(row -> row.get(0, Long.class)).one()
+                : Mono.just(-1L);
+
+        return Mono.zip(records, total).map(tuple -> {
+            List<User> users = tuple.getT1();
+            boolean hasMore = users.size() > size;
+            if (hasMore) {
+                users = users.subList(0, size);
+            }
+            String nextCursor = hasMore ? CursorPage.encodeCursor(users.get(users.size() - 1).getId()) : null;
+            return new CursorPage<>(users, nextCursor, hasMore, withTotal ? tuple.getT2() : null);
+        });
+    }
+
+    // Read - 条件查询
+    public Flux<User> getUsersByCondition(String username, String email, Integer status) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM user WHERE 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        // 与阻塞版本相同，子串条件先走trigram索引求候选ID
+        Set<Long> candidates = userNgramIndex.candidates(username, email);
+        if (candidates != null) {
+            if (candidates.isEmpty()) {
+                return Flux.empty();
+            }
+            sql.append(" AND id IN (:ids)");
+            params.put("ids", new ArrayList<>(candidates));
+        }
+        if (username != null && !username.isEmpty()) {
+            sql.append(" AND username LIKE :username");
+            params.put("username", "%" + username + "%");
+        }
+        if (email != null && !email.isEmpty()) {
+            sql.append(" AND email LIKE :email");
+            params.put("email", "%" + email + "%");
+        }
+        if (status != null) {
+            sql.append(" AND status = :status");
+            params.put("status", status);
+        }
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.map(ReactiveUserService::toUser).all();
+    }
+
+    // Update - 更新用户，只更新非空字段
+    public Mono<Boolean> updateUser(User user) {
+        StringBuilder sql = new StringBuilder("UPDATE user SET ");
+        Map<String, Object> params = new LinkedHashMap<>();
+        addSet(sql, params, "username", user.getUsername());
+        addSet(sql, params, "email", user.getEmail());
+        addSet(sql, params, "phone", user.getPhone());
+        addSet(sql, params, "age", user.getAge());
+        addSet(sql, params, "status", user.getStatus());
+        if (params.isEmpty()) {
+            // 没有需要更新的字段，只确认用户存在
+            return getUserById(user.getId()).hasElement();
+        }
+        addSet(sql, params, "updated_at", LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        sql.append(", version = version + 1 WHERE id = :id");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("id", user.getId());
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec.fetch().rowsUpdated()
+                .map(rows -> rows > 0)
+                // 部分更新时索引可能需要从数据库补全字段（阻塞JDBC），不在事件循环线程上执行
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(success -> {
+                    if (success) {
+                        userChangeListeners.forEach(listener -> listener.onUserSaved(user));
+                    }
+                });
+    }
+
+    // Delete - 根据ID删除用户
+    public Mono<Boolean> deleteUserById(Long id) {
+        return databaseClient.sql("DELETE FROM user WHERE id = :id")
+                .bind("id", id)
+                .fetch().rowsUpdated()
+                .map(rows -> rows > 0)
+                .doOnNext(success -> {
+                    if (success) {
+                        User deleted = new User();
+                        deleted.setId(id);
+                        userChangeListeners.forEach(listener -> listener.onUserDeleted(deleted));
+                    }
+                });
+    }
+
+    private static void addSet(StringBuilder sql, Map<String, Object> params, String column, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (!params.isEmpty()) {
+            sql.append(", ");
+        }
+        sql.append(column).append(" = :").append(column);
+        params.put(column, value);
+    }
+
+    private static User toUser(Readable row) {
+        User user = new User();
+        user.setId(row.get("id", Long.class));
+        user.setUsername(row.get("username", String.class));
+        user.setEmail(row.get("email", String.class));
+        user.setPhone(row.get("phone", String.class));
+        user.setAge(row.get("age", Integer.class));
+        user.setStatus(row.get("status", Integer.class));
+        user.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        user.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        user.setVersion(row.get("version", Integer.class));
+        return user;
+    }
+}
@@ -0,0 +1,187 @@
+package com.kkreal.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.kkreal.common.BatchItemResult;
+import com.kkreal.entity.User;
+import com.kkreal.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 用户批量操作服务
+ * <p>
+ * 使用MyBatis BATCH执行器按块提交，每块一个事务；配合JDBC参数 rewriteBatchedStatements=true，
+ * 驱动会将批量INSERT改写为多行语句。某一块失败只回滚该块，返回逐条处理结果。
+ */
+@Service
+@Slf4j
+@Timed(value = "user.batch.service", percentiles = {0.5, 0.99, 0.999})
+public class UserBatchService {
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private List<UserChangeListener> userChangeListeners;
+
+    // 开启异步写入（user.ingest.enabled=true）时存在，否则使用数据库自增
+    @Autowired(required = false)
+    private UserIdGenerator userIdGenerator;
+
+    @Value("${user.batch.chunk-size:500}")
+    private int chunkSize;
+
+    private SqlSessionTemplate batchSqlSession;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Create - 批量创建用户
+    public List<BatchItemResult> createUsers(List<User> users) {
+        return execute("createUsers", users, User::getId,
+                user -> {
+                    if (user.getUsername() == null || user.getUsername().trim().isEmpty()) {
+                        return "用户名不能为空";
+                    }
+                    if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
+                        return "邮箱不能为空";
+                    }
+                    // 在块事务之外分配ID，号段分配不会在持有连接时再占用一个连接
+                    if (userIdGenerator != null && user.getId() == null) {
+                        user.setId(userIdGenerator.nextId());
+                    }
+                    return null;
+                },
+                UserMapper::insert,
+                user -> userChangeListeners.forEach(listener -> listener.onUserSaved(user)));
+    }
+
+    // Update - 批量更新用户
+    public List<BatchItemResult> updateUsers(List<User> users) {
+        return execute("updateUsers", users, User::getId,
+                user -> user.getId() == null ? "用户ID不能为空" : null,
+                // 与单条更新一致，版本号由数据库加1
+                (mapper, user) -> {
+                    user.setUpdatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+                    mapper.update(user, new UpdateWrapper<User>()
+                            .eq("id", user.getId())
+                            .setSql("version = version + 1"));
+                },
+                user -> userChangeListeners.forEach(listener -> listener.onUserSaved(user)));
+    }
+
+    // Delete - 批量删除用户
+    public List<BatchItemResult> deleteUsers(List<Long> ids) {
+        return execute("deleteUsers", ids, Function.identity(),
+                id -> id == null ? "用户ID不能为空" : null,
+                UserMapper::deleteById,
+                id -> {
+                    User user = new User();
+                    user.setId(id);
+                    userChangeListeners.forEach(listener -> listener.onUserDeleted(user));
+                });
+    }
+
+    /**
+     * 校验、分块执行并汇总逐条结果
+     *
+     * @param idOf        取记录ID（用于返回结果）
+     * @param validator   返回错误信息，校验通过返回null
+     * @param statement   对单条记录调用的Mapper方法
+     * @param afterCommit 块提交成功后对每条记录执行（通知变更监听器）
+     */
+    private <T> List<BatchItemResult> execute(String operation, List<T> items,
+                                              Function<T, Long> idOf,
+                                              Function<T, String> validator,
+                                              BiConsumer<UserMapper, T> statement,
+                                              Consumer<T> afterCommit) {
+        log.info("开始批量操作 {}，记录数: {}，块大小: {}", operation, items.size(), chunkSize);
+
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        List<Integer> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            String error = item == null ? "记录不能为空" : validator.apply(item);
+            if (error != null) {
+                results.add(BatchItemResult.failure(i, item == null ? null : idOf.apply(item), error));
+            } else {
+                valid.add(i);
+            }
+        }
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            executeChunk(items, chunk, idOf, statement, afterCommit, results);
+        }
+        results.sort(Comparator.comparing(BatchItemResult::getIndex));
+
+        long succeeded = results.stream().filter(BatchItemResult::isSuccess).count();
+        log.info("批量操作 {} 完成，成功: {}，失败: {}", operation, succeeded, results.size() - succeeded);
+
+        return results;
+    }
+
+    private <T> void executeChunk(List<T> items, List<Integer> chunk,
+                                  Function<T, Long> idOf,
+                                  BiConsumer<UserMapper, T> statement,
+                                  Consumer<T> afterCommit,
+                                  List<BatchItemResult> results) {
+        try {
+            List<BatchResult> flushed = transactionTemplate.execute(status -> {
+                UserMapper mapper = batchSqlSession.getMapper(UserMapper.class);
+                chunk.forEach(i -> statement.accept(mapper, items.get(i)));
+                return batchSqlSession.flushStatements();
+            });
+            int[] counts = flushed.stream()
+                    .flatMapToInt(result -> Arrays.stream(result.getUpdateCounts()))
+                    .toArray();
+            for (int j = 0; j < chunk.size(); j++) {
+                int index = chunk.get(j);
+                T item = items.get(index);
+                // 改写为多行语句时驱动可能返回SUCCESS_NO_INFO
+                int count = j < counts.length ? counts[j] : Statement.SUCCESS_NO_INFO;
+                if (count == 0) {
+                    results.add(BatchItemResult.failure(index, idOf.apply(item), "用户不存在"));
+                } else {
+                    results.add(BatchItemResult.success(index, idOf.apply(item)));
+                    afterCommit.accept(item);
+                }
+            }
+        } catch (Exception e) {
+            log.error("批量操作块执行失败，已回滚，起始下标: {}，数量: {}，错误: {}",
+                    chunk.get(0), chunk.size(), e.getMessage());
+            for (int index : chunk) {
+                results.add(BatchItemResult.failure(index, idOf.apply(items.get(index)), e.getMessage()));
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.kkreal.service;
+
+import com.kkreal.entity.User;
+
+/**
+ * 用户数据变更监听器
+ * <p>
+ * 在用户写入数据库成功后由 UserService / UserBatchService 同步回调，
+ * 用于维护缓存、索引等派生数据
+ */
+public interface UserChangeListener {
+
+    /**
+     * 用户创建或更新后调用；更新时user可能只包含部分字段
+     */
+    default void onUserSaved(User user) {
+    }
+
+    /**
+     * 用户删除后调用；user至少包含ID
+     */
+    default void onUserDeleted(User user) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.kkreal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 用户ID号段分配器（user.ingest.enabled=true 时启用，需要 user_id_segment 表）
+ * <p>
+ * 异步写入需要在入队前确定ID；开启期间所有创建路径（单条、批量、响应式、异步写入）统一使用，
+ * 未开启时各路径使用数据库自增，不依赖该表。
+ * 每次从 user_id_segment 表预留 segment-size 个连续ID，号段起点取表中记录与 MAX(id)+1 的较大值，
+ * ID保持在自增主键的取值范围内（远小于2^53，JSON数字不丢精度），多实例之间不会重复。
+ * <p>
+ * 预留号段使用独立连接和事务，调用方不应持有其他数据库连接时触发分配（批量写入在事务外预先分配）。
+ * 多实例同时初始化号段记录、死锁或序列化失败时重新执行整个事务，最多 MAX_ATTEMPTS 次。
+ * 绕过应用直接用自增主键插入的行可能与尚未用完的号段冲突，直接写库时请显式指定ID。
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "user.ingest.enabled", havingValue = "true")
+public class UserIdGenerator {
+
+    private static final String SEGMENT_NAME = "user";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    // MySQL 死锁、锁等待超时
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${user.id.segment-size:1000}")
+    private int segmentSize;
+
+    // 当前号段 [next, limit)
+    private long next;
+
+    private long limit;
+
+    /**
+     * 分配一个用户ID
+     */
+    public synchronized long nextId() {
+        if (next >= limit) {
+            allocate();
+        }
+        return next++;
+    }
+
+    private void allocate() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                long start = reserveInTransaction();
+                this.next = start;
+                this.limit = start + segmentSize;
+                log.info("用户ID号段已分配，范围: [{}, {})", next, limit);
+                return;
+            } catch (SQLException e) {
+                if (attempt >= MAX_ATTEMPTS || !isRetryable(e)) {
+                    throw new IllegalStateException("用户ID号段分配失败: " + e.getMessage(), e);
+                }
+                log.warn("用户ID号段分配冲突，第 {} 次重试，SQLState: {}，错误: {}", attempt, e.getSQLState(), e.getMessage());
+            }
+        }
+    }
+
+    private long reserveInTransaction() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long start = reserve(connection);
+                connection.commit();
+                return start;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * 可重试的失败：唯一键冲突（其他实例同时初始化了号段记录）、死锁和序列化失败
+     */
+    private static boolean isRetryable(SQLException e) {
+        String state = e.getSQLState();
+        return (state != null && (state.startsWith("23") || state.startsWith("40")))
+                || e.getErrorCode() == ER_LOCK_DEADLOCK || e.getErrorCode() == ER_LOCK_WAIT_TIMEOUT;
+    }
+
+    private long reserve(Connection connection) throws SQLException {
+        Long stored = null;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT next_id FROM user_id_segment WHERE name = ? FOR UPDATE")) {
+            statement.setString(1, SEGMENT_NAME);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    stored = rs.getLong(1);
+                }
+            }
+        }
+        long maxId;
+        try (PreparedStatement statement = connection.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM user");
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            maxId = rs.getLong(1);
+        }
+        long start = stored != null ? Math.max(stored, maxId + 1) : maxId + 1;
+
+        if (stored != null) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE user_id_segment SET next_id = ? WHERE name = ?")) {
+                statement.setLong(1, start + segmentSize);
+                statement.setString(2, SEGMENT_NAME);
+                statement.executeUpdate();
+            }
+            return start;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO user_id_segment (name, next_id) VALUES (?, ?)")) {
+            statement.setString(1, SEGMENT_NAME);
+            statement.setLong(2, start + segmentSize);
+            statement.executeUpdate();
+            return start;
+        }
+    }
+}
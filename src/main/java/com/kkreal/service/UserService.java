@@ -1,278 +1,350 @@
 package com.kkreal.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.kkreal.cache.UserBloomFilter;
+import com.kkreal.cache.UserCache;
+import com.kkreal.common.CursorPage;
+import com.kkreal.common.ResultCode;
+import com.kkreal.datasource.ReadOnly;
 import com.kkreal.entity.User;
+import com.kkreal.exception.BusinessException;
 import com.kkreal.mapper.UserMapper;
-import com.kkreal.util.LogUtil;
+import com.kkreal.search.UserNgramIndex;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
+@Timed(value = "user.service", percentiles = {0.5, 0.99, 0.999})
 public class UserService {
 
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserNgramIndex userNgramIndex;
+
+    @Autowired
+    private UserBloomFilter userBloomFilter;
+
+    @Autowired
+    private List<UserChangeListener> userChangeListeners;
+
+    // 开启异步写入（user.ingest.enabled=true）时存在，所有创建路径共用号段，否则使用数据库自增
+    @Autowired(required = false)
+    private UserIdGenerator userIdGenerator;
+
     // Create - 创建用户
     public User createUser(User user) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
-        
-        try {
-            log.info("开始创建用户，用户名: {}", user.getUsername());
-            long startTime = System.currentTimeMillis();
-            
-            userMapper.insert(user);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] createUser took {} ms", duration);
-            log.info("用户创建成功，用户ID: {}", user.getId());
-            
-            return user;
-        } finally {
-            MDC.remove("traceId");
+        log.info("开始创建用户，用户名: {}", user.getUsername());
+        
+        if (userIdGenerator != null && user.getId() == null) {
+            user.setId(userIdGenerator.nextId());
         }
+        userMapper.insert(user);
+        userChangeListeners.forEach(listener -> listener.onUserSaved(user));
+        
+        log.info("用户创建成功，用户ID: {}", user.getId());
+        
+        return user;
     }
 
     // Read - 根据ID查询用户
+    @ReadOnly(keyed = true)
     public User getUserById(Long id) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
-        
-        try {
-            log.info("开始查询用户，ID: {}", id);
-            long startTime = System.currentTimeMillis();
-            
-            User user = userMapper.selectById(id);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] getUserById took {} ms", duration);
-            
-            if (user != null) {
-                log.info("查询用户成功，用户名: {}", user.getUsername());
-            } else {
-                log.info("用户不存在，ID: {}", id);
-            }
-            
-            return user;
-        } finally {
-            MDC.remove("traceId");
+        log.info("开始查询用户，ID: {}", id);
+        
+        User user = userCache.getById(id, userMapper::selectById);
+        
+        if (user != null) {
+            log.info("查询用户成功，用户名: {}", user.getUsername());
+        } else {
+            log.info("用户不存在，ID: {}", id);
         }
+        
+        return user;
     }
 
     // Read - 查询所有用户
+    @ReadOnly
     public List<User> getAllUsers() {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
-        
-        try {
-            log.info("开始查询所有用户");
-            long startTime = System.currentTimeMillis();
-            
-            List<User> users = userMapper.selectList(null);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] getAllUsers took {} ms", duration);
-            log.info("查询所有用户完成，总数: {}", users.size());
-            
-            return users;
-        } finally {
-            MDC.remove("traceId");
-        }
+        log.info("开始查询所有用户");
+        
+        List<User> users = userMapper.selectList(null);
+        
+        log.info("查询所有用户完成，总数: {}", users.size());
+        
+        return users;
+    }
+
+    // Read - 流式遍历所有用户
+    @ReadOnly
+    public long streamAllUsers(Consumer<User> consumer) {
+        log.info("开始流式导出所有用户");
+        
+        AtomicLong count = new AtomicLong();
+        userMapper.streamAll(context -> {
+            consumer.accept(context.getResultObject());
+            count.incrementAndGet();
+        });
+        
+        log.info("流式导出所有用户完成，总数: {}", count.get());
+        
+        return count.get();
     }
 
     // Read - 根据用户名查询
+    @ReadOnly(keyed = true)
     public User getUserByUsername(String username) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
+        log.info("开始根据用户名查询，用户名: {}", username);
         
-        try {
-            log.info("开始根据用户名查询，用户名: {}", username);
-            long startTime = System.currentTimeMillis();
-            
+        // 布隆过滤器判定一定不存在的用户名不再查询缓存和数据库
+        User user = userBloomFilter.getByUsername(username, name -> userCache.getByUsername(name, key -> {
             QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("username", username);
-            User user = userMapper.selectOne(queryWrapper);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] getUserByUsername took {} ms", duration);
-            
-            if (user != null) {
-                log.info("根据用户名查询成功，用户ID: {}", user.getId());
-            } else {
-                log.info("根据用户名未找到用户，用户名: {}", username);
-            }
-            
-            return user;
-        } finally {
-            MDC.remove("traceId");
+            queryWrapper.eq("username", key);
+            return userMapper.selectOne(queryWrapper);
+        }));
+        
+        if (user != null) {
+            log.info("根据用户名查询成功，用户ID: {}", user.getId());
+        } else {
+            log.info("根据用户名未找到用户，用户名: {}", username);
         }
+        
+        return user;
     }
 
     // Read - 根据邮箱查询
+    @ReadOnly(keyed = true)
     public User getUserByEmail(String email) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
+        log.info("开始根据邮箱查询，邮箱: {}", email);
         
-        try {
-            log.info("开始根据邮箱查询，邮箱: {}", email);
-            long startTime = System.currentTimeMillis();
-            
+        User user = userBloomFilter.getByEmail(email, value -> userCache.getByEmail(value, key -> {
             QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("email", email);
-            User user = userMapper.selectOne(queryWrapper);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] getUserByEmail took {} ms", duration);
-            
-            if (user != null) {
-                log.info("根据邮箱查询成功，用户ID: {}", user.getId());
-            } else {
-                log.info("根据邮箱未找到用户，邮箱: {}", email);
-            }
-            
-            return user;
-        } finally {
-            MDC.remove("traceId");
+            queryWrapper.eq("email", key);
+            return userMapper.selectOne(queryWrapper);
+        }));
+        
+        if (user != null) {
+            log.info("根据邮箱查询成功，用户ID: {}", user.getId());
+        } else {
+            log.info("根据邮箱未找到用户，邮箱: {}", email);
         }
+        
+        return user;
     }
 
     // Read - 分页查询
+    @ReadOnly
     public Page<User> getUsersByPage(int pageNum, int pageSize) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
-        
-        try {
-            log.info("开始分页查询用户，页码: {}，每页: {}", pageNum, pageSize);
-            long startTime = System.currentTimeMillis();
-            
-            Page<User> page = new Page<>(pageNum, pageSize);
-            Page<User> result = userMapper.selectPage(page, null);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] getUsersByPage took {} ms", duration);
-            log.info("分页查询完成，总记录数: {}，总页数: {}", result.getTotal(), result.getPages());
-            
-            return result;
-        } finally {
-            MDC.remove("traceId");
+        log.info("开始分页查询用户，页码: {}，每页: {}", pageNum, pageSize);
+        
+        Page<User> page = new Page<>(pageNum, pageSize);
+        Page<User> result = userMapper.selectPage(page, null);
+        
+        log.info("分页查询完成，总记录数: {}，总页数: {}", result.getTotal(), result.getPages());
+        
+        return result;
+    }
+
+    // Read - 游标分页查询（按ID seek，不使用OFFSET，不默认统计总数）
+    @ReadOnly
+    public CursorPage<User> getUsersByCursor(Long afterId, int size, boolean withTotal) {
+        log.info("开始游标分页查询用户，起始ID: {}，每页: {}", afterId, size);
+        
+        // 多取一条用于判断是否还有下一页
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        queryWrapper.gt(afterId != null, "id", afterId)
+                .orderByAsc("id")
+                .last("LIMIT " + (size + 1));
+        List<User> users = userMapper.selectList(queryWrapper);
+        
+        boolean hasMore = users.size() > size;
+        if (hasMore) {
+            users = users.subList(0, size);
         }
+        String nextCursor = hasMore ? CursorPage.encodeCursor(users.get(users.size() - 1).getId()) : null;
+        Long total = withTotal ? userMapper.selectCount(null) : null;
+        
+        log.info("游标分页查询完成，本页数量: {}，是否还有下一页: {}", users.size(), hasMore);
+        
+        return new CursorPage<>(users, nextCursor, hasMore, total);
     }
 
-    // Update - 更新用户
-    public boolean updateUser(User user) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
-        
-        try {
-            log.info("开始更新用户，ID: {}", user.getId());
-            long startTime = System.currentTimeMillis();
-            
-            int result = userMapper.updateById(user);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] updateUser took {} ms", duration);
-            
-            if (result > 0) {
-                log.info("用户更新成功，ID: {}", user.getId());
-                return true;
+    // Update - 部分更新并返回更新后的用户（只写入非空字段，通常只需一次数据库往返）
+    public User updateUserAndGet(User patch) {
+        log.info("开始更新用户，ID: {}，期望版本: {}", patch.getId(), patch.getVersion());
+        
+        Long id = patch.getId();
+        Integer expectedVersion = patch.getVersion();
+        // 缓存中的用户作为更新前状态；按其版本加条件更新，成功即说明缓存与数据库一致，可直接合并出新状态
+        User before = userCache.peek(id);
+        Integer guardVersion = expectedVersion != null ? expectedVersion : (before != null ? before.getVersion() : null);
+        patch.setUpdatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        // 本次更新通知监听器时缓存失效计数加一，之后计数仍为该值才说明没有其他更新，合并结果可以写回缓存
+        long expectedStamp = userCache.invalidationStamp() + 1;
+        
+        int result = userMapper.update(patch, versionedUpdate(id, guardVersion));
+        if (result == 0 && guardVersion != null) {
+            if (expectedVersion != null) {
+                if (userMapper.selectCount(new QueryWrapper<User>().eq("id", id)) > 0) {
+                    log.info("用户更新失败，版本冲突，ID: {}，期望版本: {}", id, expectedVersion);
+                    throw new BusinessException(ResultCode.VERSION_CONFLICT);
+                }
             } else {
-                log.info("用户更新失败，ID: {} 不存在", user.getId());
-                return false;
+                // 缓存已过期，不带版本条件重试，之后重新查询
+                before = null;
+                result = userMapper.update(patch, versionedUpdate(id, null));
             }
-        } finally {
-            MDC.remove("traceId");
         }
+        if (result == 0) {
+            log.info("用户更新失败，ID: {} 不存在", id);
+            return null;
+        }
+        userChangeListeners.forEach(listener -> listener.onUserSaved(patch));
+        
+        User updated;
+        if (before != null && guardVersion != null && guardVersion.equals(before.getVersion())) {
+            updated = merge(before, patch, guardVersion + 1);
+            userCache.putIfUnchanged(updated, expectedStamp);
+        } else {
+            updated = getUserById(id);
+        }
+        
+        log.info("用户更新成功，ID: {}，版本: {}", id, updated != null ? updated.getVersion() : null);
+        
+        return updated;
+    }
+
+    // Read - 查询密码哈希（走主库，注册或改密后立即登录不受从库延迟影响）
+    public String getPasswordHash(Long id) {
+        return userMapper.selectPasswordById(id);
+    }
+
+    // Update - 替换密码哈希，只在存储的哈希仍是 oldHash（为null时表示尚未设置密码）时生效，不覆盖并发修改的密码
+    public boolean replacePasswordHash(Long id, String oldHash, String newHash) {
+        int result = userMapper.update(null, new UpdateWrapper<User>()
+                .eq("id", id)
+                .eq(oldHash != null, "password", oldHash)
+                .isNull(oldHash == null, "password")
+                .set("password", newHash));
+        if (result > 0) {
+            log.info("用户密码哈希已更新，ID: {}", id);
+        }
+        return result > 0;
     }
 
     // Delete - 根据ID删除用户
     public boolean deleteUserById(Long id) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
-        
-        try {
-            log.info("开始删除用户，ID: {}", id);
-            long startTime = System.currentTimeMillis();
-            
-            int result = userMapper.deleteById(id);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] deleteUserById took {} ms", duration);
-            
-            if (result > 0) {
-                log.info("用户删除成功，ID: {}", id);
-                return true;
-            } else {
-                log.info("用户删除失败，ID: {} 不存在", id);
-                return false;
-            }
-        } finally {
-            MDC.remove("traceId");
+        log.info("开始删除用户，ID: {}", id);
+        
+        int result = userMapper.deleteById(id);
+        if (result > 0) {
+            User deleted = new User();
+            deleted.setId(id);
+            userChangeListeners.forEach(listener -> listener.onUserDeleted(deleted));
+        }
+        
+        if (result > 0) {
+            log.info("用户删除成功，ID: {}", id);
+            return true;
+        } else {
+            log.info("用户删除失败，ID: {} 不存在", id);
+            return false;
         }
     }
 
     // Delete - 根据用户名删除用户
     public boolean deleteUserByUsername(String username) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
+        log.info("开始根据用户名删除用户，用户名: {}", username);
         
-        try {
-            log.info("开始根据用户名删除用户，用户名: {}", username);
-            long startTime = System.currentTimeMillis();
-            
-            QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("username", username);
-            int result = userMapper.delete(queryWrapper);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] deleteUserByUsername took {} ms", duration);
-            
-            if (result > 0) {
-                log.info("根据用户名删除成功，用户名: {}，删除数量: {}", username, result);
-                return true;
-            } else {
-                log.info("根据用户名删除失败，用户名: {} 不存在", username);
-                return false;
-            }
-        } finally {
-            MDC.remove("traceId");
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("username", username);
+        // 先查出待删除用户的ID和邮箱，删除后通知缓存、索引
+        List<User> deleted = userMapper.selectList(
+                new QueryWrapper<User>().select("id", "username", "email").eq("username", username));
+        int result = userMapper.delete(queryWrapper);
+        deleted.forEach(user -> userChangeListeners.forEach(listener -> listener.onUserDeleted(user)));
+        
+        if (result > 0) {
+            log.info("根据用户名删除成功，用户名: {}，删除数量: {}", username, result);
+            return true;
+        } else {
+            log.info("根据用户名删除失败，用户名: {} 不存在", username);
+            return false;
         }
     }
 
+    /**
+     * 按ID更新，版本号由数据库加1；expectedVersion不为空时只更新该版本的记录
+     */
+    private static UpdateWrapper<User> versionedUpdate(Long id, Integer expectedVersion) {
+        return new UpdateWrapper<User>()
+                .eq("id", id)
+                .eq(expectedVersion != null, "version", expectedVersion)
+                .setSql("version = version + 1");
+    }
+
+    /**
+     * 更新前的完整状态叠加本次写入的非空字段
+     */
+    private static User merge(User before, User patch, int version) {
+        User merged = new User();
+        merged.setId(before.getId());
+        merged.setUsername(patch.getUsername() != null ? patch.getUsername() : before.getUsername());
+        merged.setEmail(patch.getEmail() != null ? patch.getEmail() : before.getEmail());
+        merged.setPhone(patch.getPhone() != null ? patch.getPhone() : before.getPhone());
+        merged.setAge(patch.getAge() != null ? patch.getAge() : before.getAge());
+        merged.setStatus(patch.getStatus() != null ? patch.getStatus() : before.getStatus());
+        merged.setCreatedAt(before.getCreatedAt());
+        merged.setUpdatedAt(patch.getUpdatedAt());
+        merged.setVersion(version);
+        return merged;
+    }
+
     // 条件查询示例
+    @ReadOnly
     public List<User> getUsersByCondition(String username, String email, Integer status) {
-        String traceId = LogUtil.generateTraceId();
-        MDC.put("traceId", traceId);
+        log.info("开始条件查询用户，用户名: {}，邮箱: {}，状态: {}", username, email, status);
         
-        try {
-            log.info("开始条件查询用户，用户名: {}，邮箱: {}，状态: {}", username, email, status);
-            long startTime = System.currentTimeMillis();
-            
-            QueryWrapper<User> queryWrapper = new QueryWrapper<>();
-            if (username != null && !username.isEmpty()) {
-                queryWrapper.like("username", username);
-            }
-            if (email != null && !email.isEmpty()) {
-                queryWrapper.like("email", email);
+        QueryWrapper<User> queryWrapper = new QueryWrapper<>();
+        // 子串条件先走trigram索引求候选ID，下面的LIKE条件只在候选行上做校验
+        Set<Long> candidates = userNgramIndex.candidates(username, email);
+        if (candidates != null) {
+            if (candidates.isEmpty()) {
+                log.info("条件查询完成（索引无匹配），总数: 0");
+                return Collections.emptyList();
             }
-            if (status != null) {
-                queryWrapper.eq("status", status);
-            }
-            List<User> users = userMapper.selectList(queryWrapper);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("[PERFORMANCE] getUsersByCondition took {} ms", duration);
-            log.info("条件查询完成，总数: {}", users.size());
-            
-            return users;
-        } finally {
-            MDC.remove("traceId");
+            queryWrapper.in("id", candidates);
+        }
+        if (username != null && !username.isEmpty()) {
+            queryWrapper.like("username", username);
         }
+        if (email != null && !email.isEmpty()) {
+            queryWrapper.like("email", email);
+        }
+        if (status != null) {
+            queryWrapper.eq("status", status);
+        }
+        List<User> users = userMapper.selectList(queryWrapper);
+        
+        log.info("条件查询完成，总数: {}", users.size());
+        
+        return users;
     }
 }
@@ -0,0 +1,68 @@
+package com.kkreal.util;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.kkreal.entity.User;
+
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+/**
+ * ETag工具类
+ * <p>
+ * 根据实体字段直接计算强ETag，不需要先序列化响应体
+ */
+public class ETagUtil {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * 用户ETag：ID + 版本号 + 更新时间 + 字段摘要
+     * <p>
+     * 每次更新版本号都会加一；更新时间精度只到秒，同一秒内的两次修改也能由版本号区分
+     * @param user 用户
+     * @return 带双引号的强ETag
+     */
+    public static String userETag(User user) {
+        return "\"" + versionOf(user) + "\"";
+    }
+
+    /**
+     * 分页ETag：页码、每页数量、总数以及本页每个用户的版本
+     * @param page 分页结果
+     * @return 带双引号的强ETag
+     */
+    public static String pageETag(Page<User> page) {
+        long hash = FNV_OFFSET_BASIS;
+        for (User user : page.getRecords()) {
+            hash = fnv(hash, versionOf(user));
+        }
+        return "\"p" + page.getCurrent() + "-" + page.getSize() + "-" + page.getTotal()
+                + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    private static String versionOf(User user) {
+        long updatedAt = user.getUpdatedAt() != null ? user.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+        long hash = FNV_OFFSET_BASIS;
+        hash = fnv(hash, user.getUsername());
+        hash = fnv(hash, user.getEmail());
+        hash = fnv(hash, user.getPhone());
+        hash = fnv(hash, Objects.toString(user.getAge(), null));
+        hash = fnv(hash, Objects.toString(user.getStatus(), null));
+        return user.getId() + "-" + user.getVersion() + "-" + Long.toHexString(updatedAt) + "-" + Long.toHexString(hash);
+    }
+
+    private static long fnv(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        // 字段分隔符，区分 null 与空串以及相邻字段的边界
+        hash ^= value == null ? 0x1f : 0x1e;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
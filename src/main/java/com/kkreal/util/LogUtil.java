@@ -4,12 +4,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * 日志管理工具类
  */
 public class LogUtil {
     
     private static final String TRACE_ID = "traceId";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
     
     /**
      * 获取Logger实例
@@ -45,12 +49,24 @@ public class LogUtil {
     
     /**
      * 生成追踪ID
+     * <p>
+     * 32位小写十六进制（128位随机数），与W3C traceparent 的 trace-id 格式一致。
+     * 使用ThreadLocalRandom，无锁、无共享状态
      * @return 追踪ID
      */
     public static String generateTraceId() {
-        return String.valueOf(System.currentTimeMillis()) + "-" + 
-               Thread.currentThread().getId() + "-" + 
-               Math.abs((int) (Math.random() * 100000));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] chars = new char[32];
+        writeHex(chars, 0, random.nextLong());
+        writeHex(chars, 16, random.nextLong());
+        return new String(chars);
+    }
+
+    private static void writeHex(char[] chars, int offset, long value) {
+        for (int i = offset + 15; i >= offset; i--) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
     }
     
     /**
@@ -97,10 +113,14 @@ public class LogUtil {
      * @param params 附加参数
      */
     public static void logPerformance(Logger logger, String operation, long duration, Object... params) {
-        String message = String.format("PERFORMANCE - Operation: %s, Duration: %d ms", operation, duration);
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        // 使用占位符，参数只在日志确实输出时才格式化
         if (params.length > 0) {
-            message += ", Params: " + java.util.Arrays.toString(params);
+            logger.info("[PERFORMANCE] PERFORMANCE - Operation: {}, Duration: {} ms, Params: {}", operation, duration, params);
+        } else {
+            logger.info("[PERFORMANCE] PERFORMANCE - Operation: {}, Duration: {} ms", operation, duration);
         }
-        logger.info("[PERFORMANCE] " + message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.kkreal.auth.interceptor;
+
+import com.kkreal.auth.util.JwtUtil;
+import com.kkreal.auth.util.TokenRevocationStore;
+import com.kkreal.auth.util.VerifiedToken;
+import com.kkreal.auth.util.VerifiedTokenCache;
+import com.kkreal.config.JwtKeyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthInterceptorTest {
+
+    private JwtUtil jwtUtil;
+
+    private AuthInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtUtil, "keyProperties", new JwtKeyProperties());
+        jwtUtil.init();
+
+        interceptor = new AuthInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(interceptor, "verifiedTokenCache", new VerifiedTokenCache(100));
+        // 不启动清理和快照线程
+        ReflectionTestUtils.setField(interceptor, "tokenRevocationStore", new TokenRevocationStore("", 60, 5));
+    }
+
+    @Test
+    void accessTokenIsAccepted() throws Exception {
+        MockHttpServletRequest request = request(jwtUtil.generateToken("alice"));
+
+        assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), null)).isTrue();
+        assertThat(request.getAttribute("username")).isEqualTo("alice");
+    }
+
+    @Test
+    void refreshTokenIsRejectedAsAccessToken() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(request(jwtUtil.generateRefreshToken("alice")), response, null)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(401);
+    }
+
+    @Test
+    void tokenTypeComesFromSignedClaim() {
+        VerifiedToken access = jwtUtil.parseToken(jwtUtil.generateToken("alice_refresh"));
+        VerifiedToken refresh = jwtUtil.parseToken(jwtUtil.generateRefreshToken("alice"));
+
+        assertThat(access.isRefreshToken()).isFalse();
+        assertThat(refresh.isRefreshToken()).isTrue();
+        assertThat(refresh.getUsername()).isEqualTo("alice");
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
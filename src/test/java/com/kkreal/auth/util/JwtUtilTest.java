@@ -0,0 +1,115 @@
+package com.kkreal.auth.util;
+
+import com.kkreal.config.JwtKeyProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    // 升级前的secret需为Base64编码、至少512位
+    private static final String LEGACY_SECRET = Base64.getEncoder().encodeToString(new byte[64]);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keysFileRotationAppliesWithoutRestart() throws Exception {
+        Path keysFile = tempDir.resolve("jwt-keys.properties");
+        writeKeys(keysFile, "active-kid=k1\nk1=first-secret\n", 1_000);
+        JwtUtil jwtUtil = jwtUtil(LEGACY_SECRET, keysFile.toString());
+        String oldToken = jwtUtil.generateToken("alice");
+
+        writeKeys(keysFile, "active-kid=k2\nk1=first-secret\nk2=second-secret\n", 2_000);
+        assertThat(jwtUtil.reloadIfChanged()).isTrue();
+        String newToken = jwtUtil.generateToken("bob");
+
+        assertThat(header(newToken)).contains("\"kid\":\"k2\"");
+        assertThat(jwtUtil.parseToken(oldToken).getUsername()).isEqualTo("alice");
+        assertThat(jwtUtil.parseToken(newToken).getUsername()).isEqualTo("bob");
+
+        // 旧密钥移除后，其签发的Token不再通过校验
+        writeKeys(keysFile, "active-kid=k2\nk2=second-secret\n", 3_000);
+        assertThat(jwtUtil.reloadIfChanged()).isTrue();
+        assertThatThrownBy(() -> jwtUtil.parseToken(oldToken)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void failedReloadKeepsCurrentKeys() throws Exception {
+        Path keysFile = tempDir.resolve("jwt-keys.properties");
+        writeKeys(keysFile, "active-kid=k1\nk1=first-secret\n", 1_000);
+        JwtUtil jwtUtil = jwtUtil(LEGACY_SECRET, keysFile.toString());
+
+        writeKeys(keysFile, "active-kid=missing\nk1=first-secret\n", 2_000);
+        assertThat(jwtUtil.reloadIfChanged()).isFalse();
+
+        assertThat(jwtUtil.parseToken(jwtUtil.generateToken("alice")).getUsername()).isEqualTo("alice");
+    }
+
+    @Test
+    void tokenWithoutKidIsVerifiedWithLegacyKey() {
+        JwtUtil jwtUtil = jwtUtil(LEGACY_SECRET, "");
+        @SuppressWarnings("deprecation")
+        String legacyToken = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, LEGACY_SECRET)
+                .compact();
+
+        assertThat(jwtUtil.parseToken(legacyToken).getUsername()).isEqualTo("alice");
+    }
+
+    @Test
+    void legacyKeyCanBeDisabled() {
+        JwtKeyProperties properties = new JwtKeyProperties();
+        properties.setLegacyVerifier(false);
+        JwtUtil jwtUtil = jwtUtil(LEGACY_SECRET, properties);
+        @SuppressWarnings("deprecation")
+        String legacyToken = Jwts.builder()
+                .setSubject("alice")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, LEGACY_SECRET)
+                .compact();
+
+        assertThatThrownBy(() -> jwtUtil.parseToken(legacyToken)).isInstanceOf(SignatureException.class);
+    }
+
+    private static JwtUtil jwtUtil(String secret, String keysFile) {
+        JwtKeyProperties properties = new JwtKeyProperties();
+        properties.setKeysFile(keysFile);
+        // 测试中手动触发重新加载
+        properties.setReloadIntervalSeconds(0);
+        return jwtUtil(secret, properties);
+    }
+
+    private static JwtUtil jwtUtil(String secret, JwtKeyProperties properties) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtUtil, "keyProperties", properties);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static String header(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+    }
+
+    private static void writeKeys(Path file, String content, long modifiedMillis) throws Exception {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+}
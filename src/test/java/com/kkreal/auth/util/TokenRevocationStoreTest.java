@@ -0,0 +1,94 @@
+package com.kkreal.auth.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationStoreTest {
+
+    private static final long ONE_HOUR = 3600_000;
+
+    @Test
+    void revokedTokenIsRejected() {
+        TokenRevocationStore store = new TokenRevocationStore("", 60, 5);
+
+        assertThat(store.revoke("jti-1", inFuture(ONE_HOUR))).isTrue();
+
+        assertThat(store.isRevoked("jti-1")).isTrue();
+        assertThat(store.isRevoked("jti-2")).isFalse();
+        assertThat(store.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void tokensWithoutJtiOrAlreadyExpiredAreNotStored() {
+        TokenRevocationStore store = new TokenRevocationStore("", 60, 5);
+
+        assertThat(store.revoke(null, inFuture(ONE_HOUR))).isFalse();
+        assertThat(store.revoke("jti-1", null)).isFalse();
+        assertThat(store.revoke("jti-2", inFuture(-1000))).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void sweepDropsExpiredEntries() throws InterruptedException {
+        TokenRevocationStore store = new TokenRevocationStore("", 60, 5);
+        store.revoke("short", inFuture(50));
+        store.revoke("long", inFuture(ONE_HOUR));
+
+        Thread.sleep(100);
+        store.sweep();
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.isRevoked("short")).isFalse();
+        assertThat(store.isRevoked("long")).isTrue();
+    }
+
+    @Test
+    void snapshotSurvivesRestart(@TempDir Path dir) {
+        String file = dir.resolve("revoked.snapshot").toString();
+        TokenRevocationStore store = new TokenRevocationStore(file, 60, 60);
+        store.init();
+        store.revoke("jti-1", inFuture(ONE_HOUR));
+        store.shutdown();
+
+        TokenRevocationStore restarted = new TokenRevocationStore(file, 60, 60);
+        restarted.init();
+        try {
+            assertThat(restarted.isRevoked("jti-1")).isTrue();
+            assertThat(restarted.size()).isEqualTo(1);
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void loadSkipsExpiredAndMalformedLines(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("revoked.snapshot");
+        long now = System.currentTimeMillis();
+        Files.write(file, List.of(
+                "expired " + (now - 1000),
+                "valid " + (now + ONE_HOUR),
+                "no-expiration"), StandardCharsets.UTF_8);
+
+        TokenRevocationStore store = new TokenRevocationStore(file.toString(), 60, 60);
+        store.init();
+        try {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.isRevoked("valid")).isTrue();
+            assertThat(store.isRevoked("expired")).isFalse();
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    private static Date inFuture(long millis) {
+        return new Date(System.currentTimeMillis() + millis);
+    }
+}
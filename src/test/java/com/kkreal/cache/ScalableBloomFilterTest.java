@@ -0,0 +1,54 @@
+package com.kkreal.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void hasNoFalseNegativesAfterGrowingPastExpectedInsertions() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i);
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(filter.mightContain("user" + i)).as("user" + i).isTrue();
+        }
+        assertThat(filter.size()).isEqualTo(10000);
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredValue() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 10000.0).isLessThan(0.05);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.05);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        assertThat(filter.mightContain("alice")).isFalse();
+        assertThat(filter.size()).isZero();
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatThrownBy(() -> new ScalableBloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ScalableBloomFilter(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ScalableBloomFilter(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package com.kkreal.cache;
+
+import com.kkreal.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+
+    private final UserCache cache = new UserCache(100, 300, 1000);
+
+    @Test
+    void nullOrBlankKeysReturnNullWithoutLoading() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.getById(null, id -> load(loads))).isNull();
+        assertThat(cache.getByUsername(null, name -> load(loads))).isNull();
+        assertThat(cache.getByUsername(" ", name -> load(loads))).isNull();
+        assertThat(cache.getByEmail(null, email -> load(loads))).isNull();
+        assertThat(cache.getByEmail("", email -> load(loads))).isNull();
+        assertThat(cache.peek(null)).isNull();
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    void loadedUserIsServedFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.getByUsername("alice", name -> load(loads)).getId()).isEqualTo(1L);
+        assertThat(cache.getByUsername("alice", name -> load(loads)).getId()).isEqualTo(1L);
+        assertThat(cache.getById(1L, id -> load(loads)).getUsername()).isEqualTo("alice");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    private static User load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        User user = new User("alice", "alice@example.com");
+        user.setId(1L);
+        return user;
+    }
+}
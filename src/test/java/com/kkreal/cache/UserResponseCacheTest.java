@@ -0,0 +1,91 @@
+package com.kkreal.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.kkreal.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserResponseCacheTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void writesResultEnvelopeWithCachedBody() throws Exception {
+        UserResponseCache cache = new UserResponseCache(objectMapper, 1 << 20);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        cache.writeSuccess(user(1L, "alice"), "v1", response);
+
+        JsonNode body = objectMapper.readTree(response.getContentAsByteArray());
+        assertThat(body.get("code").asInt()).isEqualTo(200);
+        assertThat(body.get("data").get("username").asText()).isEqualTo("alice");
+        assertThat(body.has("timestamp")).isTrue();
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void changedVersionIsSerializedAgain() throws Exception {
+        UserResponseCache cache = new UserResponseCache(objectMapper, 1 << 20);
+        cache.writeSuccess(user(1L, "alice"), "v1", new MockHttpServletResponse());
+
+        // 版本相同时使用缓存字节，版本变化时按新实体重新序列化
+        assertThat(username(cache, user(1L, "alice2"), "v1")).isEqualTo("alice");
+        assertThat(username(cache, user(1L, "alice2"), "v2")).isEqualTo("alice2");
+    }
+
+    @Test
+    void savedOrDeletedUserIsInvalidated() throws Exception {
+        UserResponseCache cache = new UserResponseCache(objectMapper, 1 << 20);
+        cache.writeSuccess(user(1L, "alice"), "v1", new MockHttpServletResponse());
+        cache.writeSuccess(user(2L, "bob"), "v1", new MockHttpServletResponse());
+
+        cache.onUserSaved(user(1L, "alice2"));
+        User deleted = new User();
+        deleted.setId(2L);
+        cache.onUserDeleted(deleted);
+        // 没有ID的变更通知被忽略
+        cache.onUserSaved(new User());
+
+        assertThat(cache.size()).isZero();
+        assertThat(username(cache, user(1L, "alice2"), "v1")).isEqualTo("alice2");
+    }
+
+    @Test
+    void totalBytesStayWithinBound() throws Exception {
+        long maximumBytes = 512;
+        UserResponseCache cache = new UserResponseCache(objectMapper, maximumBytes);
+        for (long id = 1; id <= 50; id++) {
+            cache.writeSuccess(user(id, "user" + id), "v1", new MockHttpServletResponse());
+        }
+
+        Cache<Long, ?> bodies = bodies(cache);
+        bodies.cleanUp();
+        assertThat(cache.size()).isLessThan(50);
+        assertThat(bodies.policy().eviction().orElseThrow().weightedSize().orElseThrow())
+                .isLessThanOrEqualTo(maximumBytes);
+    }
+
+    private String username(UserResponseCache cache, User user, String version) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        cache.writeSuccess(user, version, response);
+        return objectMapper.readTree(response.getContentAsByteArray()).get("data").get("username").asText();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Long, ?> bodies(UserResponseCache cache) {
+        return (Cache<Long, ?>) ReflectionTestUtils.getField(cache, "bodies");
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User(username, username + "@example.com");
+        user.setId(id);
+        return user;
+    }
+}
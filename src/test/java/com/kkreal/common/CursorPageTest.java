@@ -0,0 +1,41 @@
+package com.kkreal.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorPageTest {
+
+    @Test
+    void cursorRoundTrips() {
+        for (long id : new long[]{0, 1, 42, Long.MAX_VALUE}) {
+            assertThat(CursorPage.decodeCursor(CursorPage.encodeCursor(id))).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        assertThat(CursorPage.encodeCursor(Long.MAX_VALUE)).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertThat(CursorPage.decodeCursor(null)).isNull();
+        assertThat(CursorPage.decodeCursor("")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> CursorPage.decodeCursor("!!!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorPage.decodeCursor(encode("page:1"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorPage.decodeCursor(encode("id:abc"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,139 @@
+package com.kkreal.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadWriteRoutingDataSourceTest {
+
+    // 健康检查由测试手动触发
+    private static final long NO_SCHEDULED_CHECK = 3_600_000;
+
+    private final Connection primaryConnection = mock(Connection.class);
+
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private final DataSource primary = mock(DataSource.class);
+
+    private final DataSource replica = mock(DataSource.class);
+
+    private ReadWriteRoutingDataSource dataSource;
+
+    @AfterEach
+    void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    void readOnlyUsesReplicaAndOtherCallsUsePrimary() throws Exception {
+        dataSource = routing(0);
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(readConnection(List.of())).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void readAfterWriteIsScopedToWrittenKeys() throws Exception {
+        dataSource = routing(0);
+
+        dataSource.markWrite(List.of("caller:alice", "user:1"));
+
+        assertThat(readConnection(List.of("caller:alice"))).isSameAs(primaryConnection);
+        assertThat(readConnection(List.of("caller:bob", "user:1"))).isSameAs(primaryConnection);
+        assertThat(readConnection(List.of("caller:bob", "user:2"))).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void replicaIsEjectedAfterConsecutiveFailuresAndRejoinsWhenHealthy() throws Exception {
+        dataSource = routing(0);
+        when(replica.getConnection()).thenThrow(new SQLException("down"));
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(readConnection(List.of())).isSameAs(primaryConnection);
+        }
+        assertThat(dataSource.getHealthyReplicaCount()).isZero();
+
+        Connection recovered = mock(Connection.class);
+        when(recovered.isValid(anyInt())).thenReturn(true);
+        when(replica.getConnection()).thenReturn(recovered);
+        ReflectionTestUtils.invokeMethod(dataSource, "checkHealth");
+
+        assertThat(dataSource.getHealthyReplicaCount()).isEqualTo(1);
+    }
+
+    @Test
+    void laggingReplicaIsEjectedUntilItCatchesUp() throws Exception {
+        dataSource = routing(5);
+        ResultSet status = replicaStatus(30L);
+        when(replicaConnection.isValid(anyInt())).thenReturn(true);
+
+        ReflectionTestUtils.invokeMethod(dataSource, "checkHealth");
+
+        assertThat(dataSource.getHealthyReplicaCount()).isZero();
+        assertThat(readConnection(List.of())).isSameAs(primaryConnection);
+
+        when(status.getLong(1)).thenReturn(1L);
+        ReflectionTestUtils.invokeMethod(dataSource, "checkHealth");
+
+        assertThat(dataSource.getHealthyReplicaCount()).isEqualTo(1);
+    }
+
+    @Test
+    void stoppedReplicationEjectsReplica() throws Exception {
+        dataSource = routing(5);
+        ResultSet status = replicaStatus(0L);
+        when(status.wasNull()).thenReturn(true);
+        when(replicaConnection.isValid(anyInt())).thenReturn(true);
+
+        ReflectionTestUtils.invokeMethod(dataSource, "checkHealth");
+
+        assertThat(dataSource.getHealthyReplicaCount()).isZero();
+    }
+
+    private ReadWriteRoutingDataSource routing(long maxLagSeconds) throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        return new ReadWriteRoutingDataSource(primary,
+                List.of(new ReadWriteRoutingDataSource.Replica("replica-1", replica)),
+                2, NO_SCHEDULED_CHECK, 1, 60_000, 1000, maxLagSeconds, "SHOW REPLICA STATUS");
+    }
+
+    private Connection readConnection(List<String> keys) throws SQLException {
+        List<String> previous = ReadWriteRoutingDataSource.enterReadOnly(keys);
+        try {
+            return dataSource.getConnection();
+        } finally {
+            ReadWriteRoutingDataSource.restoreReadOnly(previous);
+        }
+    }
+
+    private ResultSet replicaStatus(long lagSeconds) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("Seconds_Behind_Source");
+        when(resultSet.getLong(1)).thenReturn(lagSeconds);
+        return resultSet;
+    }
+}
@@ -0,0 +1,103 @@
+package com.kkreal.ingest;
+
+import com.kkreal.config.UserIngestProperties;
+import com.kkreal.entity.User;
+import com.kkreal.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalUserIngestChannelTest {
+
+    private LocalUserIngestChannel channel;
+
+    @AfterEach
+    void tearDown() {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    @Test
+    void failedMessageIsRetriedUntilItSucceeds() throws Exception {
+        channel = new LocalUserIngestChannel(properties(100, 3), 1000);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch written = new CountDownLatch(1);
+        channel.subscribe(batch -> {
+            // 前两次写入失败，第三次成功
+            if (attempts.incrementAndGet() < 3) {
+                return batch;
+            }
+            written.countDown();
+            return List.of();
+        });
+
+        channel.publish(user("alice"));
+
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(channel.deadLetterCount()).isZero();
+    }
+
+    @Test
+    void messageExceedingMaxRetriesGoesToDeadLetters() throws Exception {
+        channel = new LocalUserIngestChannel(properties(100, 2), 1000);
+        Map<String, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+        CountDownLatch deadLettered = new CountDownLatch(1);
+        channel.subscribe(batch -> {
+            batch.forEach(user -> deliveries.computeIfAbsent(user.getUsername(), name -> new AtomicInteger()).incrementAndGet());
+            // 第一次投递 + 2次重试后，第4次不会发生
+            if (deliveries.get("bad") != null && deliveries.get("bad").get() == 3) {
+                deadLettered.countDown();
+            }
+            return batch.stream().filter(user -> user.getUsername().equals("bad")).toList();
+        });
+
+        channel.publish(user("good"));
+        channel.publish(user("bad"));
+
+        assertThat(deadLettered.await(5, TimeUnit.SECONDS)).isTrue();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (channel.deadLetterCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(channel.deadLetterCount()).isEqualTo(1);
+        assertThat(channel.deadLetters()).extracting(User::getUsername).containsExactly("bad");
+        assertThat(deliveries.get("good").get()).isEqualTo(1);
+        assertThat(deliveries.get("bad").get()).isEqualTo(3);
+        assertThat(channel.backlog()).isZero();
+    }
+
+    @Test
+    void fullQueueRejectsWithOverload() {
+        channel = new LocalUserIngestChannel(properties(1, 3), 0);
+
+        channel.publish(user("alice"));
+
+        assertThatThrownBy(() -> channel.publish(user("bob"))).isInstanceOf(ServiceOverloadedException.class);
+    }
+
+    private static UserIngestProperties properties(int queueCapacity, int maxRetries) {
+        UserIngestProperties properties = new UserIngestProperties();
+        properties.setBatchSize(10);
+        properties.setMaxWaitMs(5);
+        properties.setMaxRetries(maxRetries);
+        properties.setRetryBackoffMs(10);
+        properties.setConsumerThreads(1);
+        properties.getLocal().setQueueCapacity(queueCapacity);
+        return properties;
+    }
+
+    private static User user(String username) {
+        return new User(username, username + "@example.com");
+    }
+}
@@ -0,0 +1,84 @@
+package com.kkreal.ingest;
+
+import com.kkreal.common.BatchItemResult;
+import com.kkreal.entity.User;
+import com.kkreal.mapper.UserMapper;
+import com.kkreal.service.UserBatchService;
+import com.kkreal.service.UserChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserIngestServiceTest {
+
+    private UserBatchService userBatchService;
+
+    private UserMapper userMapper;
+
+    private UserChangeListener listener;
+
+    private UserIngestService userIngestService;
+
+    @BeforeEach
+    void setUp() {
+        userBatchService = mock(UserBatchService.class);
+        userMapper = mock(UserMapper.class);
+        listener = mock(UserChangeListener.class);
+        userIngestService = new UserIngestService();
+        ReflectionTestUtils.setField(userIngestService, "userBatchService", userBatchService);
+        ReflectionTestUtils.setField(userIngestService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userIngestService, "userChangeListeners", List.of(listener));
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRowAndOnlyBadRowsAreReturned() {
+        User good = user(1L, "alice");
+        User bad = user(2L, "bob");
+        when(userBatchService.createUsers(List.of(good, bad))).thenReturn(List.of(
+                BatchItemResult.failure(0, 1L, "块写入失败"),
+                BatchItemResult.failure(1, 2L, "块写入失败")));
+        when(userMapper.insert(bad)).thenThrow(new DataIntegrityViolationException("email too long"));
+
+        List<User> retry = userIngestService.insert(List.of(good, bad));
+
+        assertThat(retry).containsExactly(bad);
+        verify(listener).onUserSaved(good);
+        verify(listener, never()).onUserSaved(bad);
+    }
+
+    @Test
+    void redeliveredRowIsTreatedAsWritten() {
+        User user = user(1L, "alice");
+        when(userBatchService.createUsers(List.of(user))).thenReturn(List.of(BatchItemResult.failure(0, 1L, "重复")));
+        when(userMapper.insert(user)).thenThrow(new DuplicateKeyException("PRIMARY"));
+        when(userMapper.selectById(1L)).thenReturn(user(1L, "alice"));
+
+        assertThat(userIngestService.insert(List.of(user))).isEmpty();
+    }
+
+    @Test
+    void idTakenByAnotherUserIsRetried() {
+        User user = user(1L, "alice");
+        when(userBatchService.createUsers(List.of(user))).thenReturn(List.of(BatchItemResult.failure(0, 1L, "重复")));
+        when(userMapper.insert(user)).thenThrow(new DuplicateKeyException("PRIMARY"));
+        when(userMapper.selectById(1L)).thenReturn(user(1L, "mallory"));
+
+        assertThat(userIngestService.insert(List.of(user))).containsExactly(user);
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User(username, username + "@example.com");
+        user.setId(id);
+        return user;
+    }
+}
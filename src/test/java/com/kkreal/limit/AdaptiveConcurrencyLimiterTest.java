@@ -0,0 +1,91 @@
+package com.kkreal.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long ONE_MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void rejectsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 10, 0.2, 2.0);
+        for (int i = 1; i <= 10; i++) {
+            assertThat(limiter.tryAcquire(1.0)).isEqualTo(i);
+        }
+
+        assertThat(limiter.tryAcquire(1.0)).isEqualTo(-1);
+        assertThat(limiter.getInflight()).isEqualTo(10);
+
+        limiter.release(ONE_MS, 10);
+        assertThat(limiter.getInflight()).isEqualTo(9);
+        assertThat(limiter.tryAcquire(1.0)).isEqualTo(10);
+    }
+
+    @Test
+    void lowerShareIsRejectedFirst() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 10, 0.2, 2.0);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire(0.5)).isPositive();
+        }
+
+        assertThat(limiter.tryAcquire(0.5)).isEqualTo(-1);
+        assertThat(limiter.tryAcquire(1.0)).isEqualTo(6);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 10, 200, 10, 1.0, 1.0);
+        // 第一个窗口建立延迟基线
+        sampleWindow(limiter, ONE_MS, 100);
+
+        sampleWindow(limiter, 10 * ONE_MS, 100);
+
+        assertThat(limiter.getLimit()).isLessThan(100).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test
+    void limitGrowsWhenLatencyIsSteadyUnderLoad() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 200, 10, 1.0, 2.0);
+        sampleWindow(limiter, ONE_MS, 20);
+
+        sampleWindow(limiter, ONE_MS, 20);
+
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    void limitDoesNotGrowWhileIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 200, 10, 1.0, 2.0);
+        for (int i = 0; i < 10; i++) {
+            sampleWindow(limiter, ONE_MS, 1);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void limitStaysWithinBounds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 15, 25, 10, 1.0, 2.0);
+        sampleWindow(limiter, ONE_MS, 20);
+        for (int i = 0; i < 20; i++) {
+            sampleWindow(limiter, ONE_MS, limiter.getLimit());
+        }
+        assertThat(limiter.getLimit()).isEqualTo(25);
+
+        for (int i = 0; i < 20; i++) {
+            sampleWindow(limiter, 100 * ONE_MS, limiter.getLimit());
+        }
+        assertThat(limiter.getLimit()).isEqualTo(15);
+    }
+
+    private static void sampleWindow(AdaptiveConcurrencyLimiter limiter, long rttNanos, int inflight) {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(1.0);
+            limiter.release(rttNanos, inflight);
+        }
+    }
+}
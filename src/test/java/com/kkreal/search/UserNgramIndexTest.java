@@ -0,0 +1,170 @@
+package com.kkreal.search;
+
+import com.kkreal.entity.User;
+import com.kkreal.mapper.UserMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserNgramIndexTest {
+
+    private UserMapper userMapper;
+
+    private UserNgramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userMapper = mock(UserMapper.class);
+        index = new UserNgramIndex();
+        ReflectionTestUtils.setField(index, "userMapper", userMapper);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "maxCandidates", 1000);
+    }
+
+    @Test
+    void fallsBackToLikeUntilFirstBuild() {
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.candidates("alice", null)).isNull();
+    }
+
+    @Test
+    void findsSubstringsCaseInsensitively() {
+        stubRows(user(1L, "alice", "alice@example.com"), user(2L, "bob", "bob@example.com"));
+
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.candidates("LIC", null)).containsExactly(1L);
+        assertThat(index.candidates(null, "@example")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.candidates("ali", "bob@")).isEmpty();
+        assertThat(index.candidates("zzz", null)).isEmpty();
+    }
+
+    @Test
+    void shortTermsFallBackToLike() {
+        stubRows(user(1L, "alice", "alice@example.com"));
+        index.rebuild();
+
+        assertThat(index.candidates("al", null)).isNull();
+    }
+
+    @Test
+    void partialPatchForUnindexedUserIsCompletedFromDatabase() {
+        stubRows(user(1L, "alice", "alice@example.com"));
+        index.rebuild();
+        when(userMapper.selectById(2L)).thenReturn(user(2L, "carol", "carol@example.com"));
+
+        User patch = new User();
+        patch.setId(2L);
+        patch.setEmail("carol@example.com");
+        index.onUserSaved(patch);
+
+        assertThat(index.candidates("car", null)).containsExactly(2L);
+        assertThat(index.candidates(null, "carol@")).containsExactly(2L);
+    }
+
+    @Test
+    void partialPatchForIndexedUserKeepsOtherFields() {
+        stubRows(user(1L, "alice", "alice@example.com"));
+        index.rebuild();
+
+        User patch = new User();
+        patch.setId(1L);
+        patch.setEmail("new@example.com");
+        index.onUserSaved(patch);
+
+        verify(userMapper, never()).selectById(any());
+        assertThat(index.candidates("alice", null)).containsExactly(1L);
+        assertThat(index.candidates(null, "new@")).containsExactly(1L);
+        assertThat(index.candidates(null, "alice@")).isEmpty();
+    }
+
+    @Test
+    void partialPatchForDeletedUserIsIgnored() {
+        stubRows(user(1L, "alice", "alice@example.com"));
+        index.rebuild();
+
+        User patch = new User();
+        patch.setId(2L);
+        patch.setAge(30);
+        index.onUserSaved(patch);
+
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void deletedUserIsRemoved() {
+        stubRows(user(1L, "alice", "alice@example.com"));
+        index.rebuild();
+
+        index.onUserDeleted(user(1L, null, null));
+
+        assertThat(index.candidates("alice", null)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void writesDuringRebuildWinOverScannedRows() {
+        doAnswer(invocation -> {
+            // 扫描到这些行之前，写路径已删除1、修改了2
+            index.onUserDeleted(user(1L, null, null));
+            index.onUserSaved(user(2L, "bobby", "bobby@example.com"));
+            ResultHandler<User> handler = invocation.getArgument(0);
+            DefaultResultContext<User> context = new DefaultResultContext<>();
+            for (User user : List.of(user(1L, "alice", "alice@example.com"), user(2L, "bob", "bob@example.com"))) {
+                context.nextResultObject(user);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(userMapper).streamAll(any());
+
+        index.rebuild();
+
+        assertThat(index.candidates("alice", null)).isEmpty();
+        assertThat(index.candidates("bobby", null)).containsExactly(2L);
+    }
+
+    @Test
+    void failedRebuildKeepsPreviousIndex() {
+        stubRows(user(1L, "alice", "alice@example.com"));
+        index.rebuild();
+        doThrow(new RuntimeException("connection refused")).when(userMapper).streamAll(any());
+
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.candidates("alice", null)).containsExactly(1L);
+    }
+
+    private void stubRows(User... users) {
+        doAnswer(invocation -> {
+            ResultHandler<User> handler = invocation.getArgument(0);
+            DefaultResultContext<User> context = new DefaultResultContext<>();
+            for (User user : users) {
+                context.nextResultObject(user);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(userMapper).streamAll(any());
+    }
+
+    private static User user(Long id, String username, String email) {
+        User user = new User(username, email);
+        user.setId(id);
+        return user;
+    }
+}
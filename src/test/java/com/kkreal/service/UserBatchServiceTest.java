@@ -0,0 +1,110 @@
+package com.kkreal.service;
+
+import com.kkreal.common.BatchItemResult;
+import com.kkreal.entity.User;
+import com.kkreal.mapper.UserMapper;
+import org.apache.ibatis.executor.BatchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserBatchServiceTest {
+
+    private SqlSessionTemplate batchSqlSession;
+
+    private PlatformTransactionManager transactionManager;
+
+    private UserChangeListener listener;
+
+    private UserBatchService userBatchService;
+
+    @BeforeEach
+    void setUp() {
+        batchSqlSession = mock(SqlSessionTemplate.class);
+        when(batchSqlSession.getMapper(UserMapper.class)).thenReturn(mock(UserMapper.class));
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        listener = mock(UserChangeListener.class);
+
+        userBatchService = new UserBatchService();
+        ReflectionTestUtils.setField(userBatchService, "batchSqlSession", batchSqlSession);
+        ReflectionTestUtils.setField(userBatchService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(userBatchService, "userChangeListeners", List.of(listener));
+        ReflectionTestUtils.setField(userBatchService, "chunkSize", 2);
+    }
+
+    @Test
+    void invalidRecordsAreReportedAtTheirIndex() {
+        when(batchSqlSession.flushStatements()).thenReturn(List.of(batchResult(1, 1)));
+
+        List<BatchItemResult> results = userBatchService.createUsers(Arrays.asList(
+                user(1L, "alice", "alice@example.com"),
+                null,
+                user(3L, " ", "carol@example.com"),
+                user(4L, "dave", null),
+                user(5L, "eve", "eve@example.com")));
+
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(results).extracting(BatchItemResult::isSuccess).containsExactly(true, false, false, false, true);
+        assertThat(results).extracting(BatchItemResult::getMessage)
+                .containsExactly(null, "记录不能为空", "用户名不能为空", "邮箱不能为空", null);
+        assertThat(results).extracting(BatchItemResult::getId).containsExactly(1L, null, 3L, 4L, 5L);
+        verify(listener, times(2)).onUserSaved(any());
+    }
+
+    @Test
+    void zeroUpdateCountIsReportedAsMissingUser() {
+        when(batchSqlSession.flushStatements()).thenReturn(List.of(batchResult(1, 0)));
+
+        List<BatchItemResult> results = userBatchService.updateUsers(List.of(
+                user(1L, "alice", "alice@example.com"),
+                user(2L, "bob", "bob@example.com")));
+
+        assertThat(results).extracting(BatchItemResult::isSuccess).containsExactly(true, false);
+        assertThat(results.get(1).getMessage()).isEqualTo("用户不存在");
+        verify(listener, times(1)).onUserSaved(any());
+    }
+
+    @Test
+    void failedChunkIsRolledBackWithoutAffectingOtherChunks() {
+        when(batchSqlSession.flushStatements())
+                .thenReturn(List.of(batchResult(1, 1)))
+                .thenThrow(new IllegalStateException("Duplicate entry"));
+
+        List<BatchItemResult> results = userBatchService.deleteUsers(List.of(1L, 2L, 3L, 4L));
+
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(results).extracting(BatchItemResult::isSuccess).containsExactly(true, true, false, false);
+        assertThat(results.get(2).getMessage()).isEqualTo("Duplicate entry");
+        verify(transactionManager).rollback(any());
+        verify(listener, times(2)).onUserDeleted(any());
+        verify(listener, never()).onUserSaved(any());
+    }
+
+    private static BatchResult batchResult(int... updateCounts) {
+        BatchResult result = new BatchResult(null, "batch", null);
+        result.setUpdateCounts(updateCounts);
+        return result;
+    }
+
+    private static User user(Long id, String username, String email) {
+        User user = new User(username, email);
+        user.setId(id);
+        return user;
+    }
+}
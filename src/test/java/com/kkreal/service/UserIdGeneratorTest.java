@@ -0,0 +1,87 @@
+package com.kkreal.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserIdGeneratorTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+
+    private final Connection connection = mock(Connection.class);
+
+    @Test
+    void deadlockIsRetried() throws Exception {
+        PreparedStatement lockSegment = segmentRow(100L);
+        when(connection.prepareStatement(startsWith("SELECT next_id")))
+                .thenThrow(new SQLException("Deadlock found when trying to get lock", "40001", 1213))
+                .thenReturn(lockSegment);
+        maxId(10L);
+        when(connection.prepareStatement(startsWith("UPDATE"))).thenReturn(mock(PreparedStatement.class));
+
+        UserIdGenerator generator = generator();
+
+        assertThat(generator.nextId()).isEqualTo(100L);
+        assertThat(generator.nextId()).isEqualTo(101L);
+        verify(connection, times(1)).commit();
+        verify(connection, times(1)).rollback();
+    }
+
+    @Test
+    void nonTransientFailureIsNotRetried() throws Exception {
+        when(connection.prepareStatement(startsWith("SELECT next_id")))
+                .thenThrow(new SQLException("Table 'user_id_segment' doesn't exist", "42S02", 1146));
+
+        UserIdGenerator generator = generator();
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    void retriesAreBounded() throws Exception {
+        when(connection.prepareStatement(startsWith("SELECT next_id")))
+                .thenThrow(new SQLException("Deadlock found when trying to get lock", "40001", 1213));
+
+        UserIdGenerator generator = generator();
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+        verify(dataSource, times(3)).getConnection();
+    }
+
+    private UserIdGenerator generator() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        UserIdGenerator generator = new UserIdGenerator();
+        ReflectionTestUtils.setField(generator, "dataSource", dataSource);
+        ReflectionTestUtils.setField(generator, "segmentSize", 1000);
+        return generator;
+    }
+
+    private PreparedStatement segmentRow(long nextId) throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(nextId);
+        return statement;
+    }
+
+    private void maxId(long maxId) throws SQLException {
+        PreparedStatement statement = segmentRow(maxId);
+        when(connection.prepareStatement(startsWith("SELECT COALESCE"))).thenReturn(statement);
+    }
+}
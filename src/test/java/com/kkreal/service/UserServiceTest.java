@@ -0,0 +1,83 @@
+package com.kkreal.service;
+
+import com.kkreal.cache.UserBloomFilter;
+import com.kkreal.cache.UserCache;
+import com.kkreal.common.ResultCode;
+import com.kkreal.entity.User;
+import com.kkreal.exception.BusinessException;
+import com.kkreal.mapper.UserMapper;
+import com.kkreal.search.UserNgramIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private UserMapper userMapper;
+
+    private UserCache userCache;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userMapper = mock(UserMapper.class);
+        userCache = new UserCache(100, 300, 1000);
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userService, "userCache", userCache);
+        ReflectionTestUtils.setField(userService, "userNgramIndex", mock(UserNgramIndex.class));
+        ReflectionTestUtils.setField(userService, "userBloomFilter", mock(UserBloomFilter.class));
+        ReflectionTestUtils.setField(userService, "userChangeListeners", List.<UserChangeListener>of(userCache));
+    }
+
+    @Test
+    void staleVersionIsRejectedAsConflict() {
+        when(userMapper.update(any(User.class), any())).thenReturn(0);
+        when(userMapper.selectCount(any())).thenReturn(1L);
+
+        assertThatThrownBy(() -> userService.updateUserAndGet(patch(1L, 3, "alice2")))
+                .isInstanceOfSatisfying(BusinessException.class,
+                        e -> assertThat(e.getCode()).isEqualTo(ResultCode.VERSION_CONFLICT.getCode()));
+    }
+
+    @Test
+    void missingUserIsNotAConflict() {
+        when(userMapper.update(any(User.class), any())).thenReturn(0);
+        when(userMapper.selectCount(any())).thenReturn(0L);
+
+        assertThat(userService.updateUserAndGet(patch(1L, 3, "alice2"))).isNull();
+    }
+
+    @Test
+    void matchingVersionMergesCachedUserAndBumpsVersion() {
+        User cached = new User("alice", "alice@example.com");
+        cached.setId(1L);
+        cached.setVersion(3);
+        userCache.getById(1L, id -> cached);
+        when(userMapper.update(any(User.class), any())).thenReturn(1);
+
+        User updated = userService.updateUserAndGet(patch(1L, 3, "alice2"));
+
+        assertThat(updated.getVersion()).isEqualTo(4);
+        assertThat(updated.getUsername()).isEqualTo("alice2");
+        assertThat(updated.getEmail()).isEqualTo("alice@example.com");
+        assertThat(userCache.peek(1L).getVersion()).isEqualTo(4);
+    }
+
+    private static User patch(Long id, Integer version, String username) {
+        User patch = new User();
+        patch.setId(id);
+        patch.setVersion(version);
+        patch.setUsername(username);
+        return patch;
+    }
+}
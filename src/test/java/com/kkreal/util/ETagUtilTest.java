@@ -0,0 +1,29 @@
+package com.kkreal.util;
+
+import com.kkreal.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagUtilTest {
+
+    @Test
+    void versionChangeChangesETag() {
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 1, 1, 12, 0, 0);
+        User before = user(3, updatedAt);
+        User after = user(4, updatedAt);
+
+        assertThat(ETagUtil.userETag(before)).isNotEqualTo(ETagUtil.userETag(after));
+        assertThat(ETagUtil.userETag(before)).isEqualTo(ETagUtil.userETag(user(3, updatedAt)));
+    }
+
+    private static User user(Integer version, LocalDateTime updatedAt) {
+        User user = new User("alice", "alice@example.com");
+        user.setId(1L);
+        user.setVersion(version);
+        user.setUpdatedAt(updatedAt);
+        return user;
+    }
+}